@@ -0,0 +1,18 @@
+package android.os;
+
+/**
+ * android.os.AsyncTask 桩代码(基准测试运行于普通JVM,在调用线程同步执行)。
+ */
+public abstract class AsyncTask<Params, Progress, Result> {
+
+    protected abstract Result doInBackground(Params... params);
+
+    protected void onPostExecute(Result result) {
+    }
+
+    @SafeVarargs
+    public final AsyncTask<Params, Progress, Result> execute(Params... params) {
+        onPostExecute(doInBackground(params));
+        return this;
+    }
+}
@@ -0,0 +1,148 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.models.*;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * 基准测试消息帧构造工具。
+ */
+final class BenchmarkFrames {
+
+    /**
+     * 构造推送消息JSON。
+     * @param index
+     * 消息序号。
+     * @param contentSize
+     * 消息内容长度。
+     * @return 推送消息JSON。
+     */
+    static String publishJson(final int index, final int contentSize){
+        final StringBuilder content = new StringBuilder(contentSize);
+        while (content.length() < contentSize){
+            content.append((char)('a' + (content.length() % 26)));
+        }
+        return "{\"pushId\":\"push-" + index + "\",\"contentId\":\"content-" + index + "\","
+                + "\"content\":\"" + content + "\","
+                + "\"aps\":{\"badge\":1,\"sound\":\"default\",\"alert\":{\"body\":\"hello\",\"loc-key\":\"MSG\"}}}";
+    }
+
+    /**
+     * 构造应答消息JSON。
+     * @return 应答消息JSON。
+     */
+    static String ackJson(){
+        return "{\"result\":0,\"msg\":\"ok\"}";
+    }
+
+    /**
+     * 构造应答/下行消息体JSON。
+     * @param type
+     * 消息类型(服务器下行)。
+     * @param index
+     * 消息序号。
+     * @param contentSize
+     * 推送消息内容长度。
+     * @return 消息体JSON,无消息体时返回null。
+     */
+    static String responseJson(final MessageType type, final int index, final int contentSize){
+        switch (type){
+            case Publish:
+                return publishJson(index, contentSize);
+            case Pingresp:
+                return "{\"heartRate\":0,\"afterConnect\":0}";
+            case Connack:
+            case Pubrel:
+            case Suback:
+            case Unsuback:
+                return ackJson();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 构造请求数据模型。
+     * @param type
+     * 消息类型(客户端上行)。
+     * @param index
+     * 消息序号。
+     * @return 请求数据模型,非请求类型返回null。
+     */
+    static RequestModel requestModel(final MessageType type, final int index){
+        final RequestModel model;
+        switch (type){
+            case Connect: {
+                final ConnectRequestModel connect = new ConnectRequestModel();
+                connect.setDeviceName("benchmark-device");
+                connect.setDeviceAccount("tag-" + index);
+                model = connect;
+                break;
+            }
+            case Puback: {
+                final PubAckRequestModel ack = new PubAckRequestModel();
+                ack.setPushId("push-" + index);
+                model = ack;
+                break;
+            }
+            case Subscribe: {
+                final SubscribeRequestModel subscribe = new SubscribeRequestModel();
+                subscribe.setDeviceAccount("tag-" + index);
+                model = subscribe;
+                break;
+            }
+            case Unsubscribe:
+                model = new UnsubscribeRequestModel();
+                break;
+            case Pingreq:
+                model = new PingRequestModel();
+                break;
+            case Disconnect:
+                model = new DisconnectModel();
+                break;
+            default:
+                return null;
+        }
+        model.setAccount("benchmark-account");
+        model.setToken("benchmark-token");
+        model.setDeviceId("0123456789abcdef0123456789abcdef");
+        return model;
+    }
+
+    /**
+     * 编码消息帧。
+     * @param type
+     * 消息类型。
+     * @param json
+     * 消息体。
+     * @return 消息帧字节数据。
+     */
+    static byte[] frame(final MessageType type, final String json){
+        final byte[] body = json == null ? new byte[0] : json.getBytes(Codec.UTF8);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + 5);
+        out.write(type.getVal() << 4);
+        int num = body.length;
+        do{
+            int digit = num & 0x7f;
+            num >>>= 7;
+            if(num > 0) digit |= 0x80;
+            out.write(digit);
+        }while (num > 0);
+        out.write(body, 0, body.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * 拼接多个消息帧。
+     * @param frames
+     * 消息帧集合。
+     * @return 拼接后的字节数据。
+     */
+    static byte[] concat(final byte[]... frames){
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for(byte[] frame : frames){
+            out.write(frame, 0, frame.length);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,57 @@
+package com.linkus.push.sdk.socket;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 解码器基准测试(每次操作解码 FRAMES 个消息帧,配合 -prof gc 查看每帧分配字节数)。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecDecoderBenchmark {
+    private static final int FRAMES = 50;
+    private static final int READ_SIZE = 1024;
+
+    @Param({"Suback", "Publish"})
+    public String type;
+
+    @Param({"64", "1024"})
+    public int contentSize;
+
+    private byte[] stream;
+    private CodecDecoder decoder;
+
+    @Setup
+    public void setup(final Blackhole blackhole){
+        final MessageType messageType = MessageType.valueOf(type);
+        final byte[][] frames = new byte[FRAMES][];
+        for(int i = 0; i < FRAMES; i++){
+            frames[i] = BenchmarkFrames.frame(messageType, messageType == MessageType.Publish
+                    ? BenchmarkFrames.publishJson(i, contentSize) : BenchmarkFrames.ackJson());
+        }
+        stream = BenchmarkFrames.concat(frames);
+        decoder = new CodecDecoder(new CodecDecoder.CodecDecoderListener() {
+            @Override
+            public void decode(MessageType type, Object model) {
+                blackhole.consume(model);
+            }
+        });
+    }
+
+    /**
+     * 按socket读取大小分段写入解码器(模拟重连后的消息突发)。
+     */
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void decodeBurst(){
+        for(int offset = 0; offset < stream.length; offset += READ_SIZE){
+            decoder.addDecode(stream, offset, Math.min(READ_SIZE, stream.length - offset));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.linkus.push.sdk.socket;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 解码器随机分段基准测试(消息帧在随机位置被截断,覆盖消息头与消息体跨读取的情况)。
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecDecoderFragmentBenchmark {
+    private static final int FRAMES = 50;
+    //固定随机种子,保证各次运行分段一致
+    private static final long SEED = 20170307L;
+
+    @Param({"64", "1024"})
+    public int contentSize;
+
+    @Param({"16", "256", "1500"})
+    public int maxFragment;
+
+    private byte[] stream;
+    private int[] fragments;
+    private CodecDecoder decoder;
+
+    @Setup
+    public void setup(final Blackhole blackhole){
+        final byte[][] frames = new byte[FRAMES][];
+        for(int i = 0; i < FRAMES; i++){
+            final MessageType type = (i % 5 == 4) ? MessageType.Pingresp : MessageType.Publish;
+            frames[i] = BenchmarkFrames.frame(type, BenchmarkFrames.responseJson(type, i, contentSize));
+        }
+        stream = BenchmarkFrames.concat(frames);
+        //预先生成随机分段长度
+        final Random random = new Random(SEED);
+        final int[] lengths = new int[stream.length];
+        int count = 0;
+        for(int offset = 0; offset < stream.length; count++){
+            final int len = Math.min(1 + random.nextInt(maxFragment), stream.length - offset);
+            lengths[count] = len;
+            offset += len;
+        }
+        fragments = new int[count];
+        System.arraycopy(lengths, 0, fragments, 0, count);
+        decoder = new CodecDecoder(new CodecDecoder.CodecDecoderListener() {
+            @Override
+            public void decode(MessageType type, Object model) {
+                blackhole.consume(model);
+            }
+        });
+    }
+
+    /**
+     * 按随机分段写入解码器。
+     */
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void decodeFragmented(){
+        int offset = 0;
+        for(int len : fragments){
+            decoder.addDecode(stream, offset, len);
+            offset += len;
+        }
+    }
+}
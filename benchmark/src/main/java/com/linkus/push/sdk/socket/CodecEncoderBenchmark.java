@@ -0,0 +1,104 @@
+package com.linkus.push.sdk.socket;
+
+import com.alibaba.fastjson.JSONObject;
+import com.linkus.push.sdk.models.ConnectRequestModel;
+import com.linkus.push.sdk.models.RequestModel;
+import com.linkus.push.sdk.models.SubscribeRequestModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编码器基准测试(不同消息体长度下的消息帧编码,配合 -prof gc 查看每帧分配字节数)。
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecEncoderBenchmark {
+
+    @Param({"64", "512", "4096", "32768"})
+    public int payloadSize;
+
+    private CodecEncoder encoder;
+    private String payload;
+    private RequestModel model;
+
+    @Setup
+    public void setup(){
+        encoder = new CodecEncoder();
+        payload = BenchmarkFrames.publishJson(1, payloadSize);
+        //连接请求设备名称填充至指定长度
+        final ConnectRequestModel connect = (ConnectRequestModel) BenchmarkFrames.requestModel(MessageType.Connect, 1);
+        final StringBuilder name = new StringBuilder(payloadSize);
+        while (name.length() < payloadSize){
+            name.append((char)('a' + (name.length() % 26)));
+        }
+        connect.setDeviceName(name.toString());
+        model = connect;
+        verifyBinaryGrowth();
+    }
+
+    //回归校验:二进制消息体跨越缓冲区容量级别(512字节)时扩容重试,不丢失消息帧
+    private static void verifyBinaryGrowth(){
+        final StringBuilder tag = new StringBuilder();
+        for(int len = 1; len <= 1100; len++){
+            tag.append((char)('a' + (len % 26)));
+            //每次使用新的编码器(缓冲区容量提示从最小级别开始)
+            final CodecEncoder fresh = new CodecEncoder();
+            final SubscribeRequestModel subscribe = (SubscribeRequestModel) BenchmarkFrames.requestModel(MessageType.Subscribe, len);
+            subscribe.setDeviceAccount(tag.toString());
+            final PooledBuffer frame = fresh.encode(new FixedHeader(MessageType.Subscribe, true, BodyFormat.Binary), subscribe);
+            try {
+                final byte[] data = new byte[frame.buffer().remaining()];
+                frame.buffer().get(data);
+                final FixedHeaderDecoder decoder = new FixedHeaderDecoder();
+                int pos = 0;
+                while (!decoder.update(data[pos++])){
+                    //消息头
+                }
+                final JSONObject body = BinaryCodec.readObject(data, pos, decoder.take().getRemainingLength());
+                if(!tag.toString().equals(body.getString("deviceAccount"))){
+                    throw new IllegalStateException("二进制消息体编码错误[tag:" + len + "]!");
+                }
+            }finally {
+                frame.release();
+            }
+        }
+    }
+
+    /**
+     * 字符串消息体编码。
+     */
+    @Benchmark
+    public int encodeString(){
+        final PooledBuffer frame = encoder.encode(new FixedHeader(MessageType.Publish, false), payload);
+        final int len = frame.buffer().remaining();
+        frame.release();
+        return len;
+    }
+
+    /**
+     * 请求数据模型编码(签名JSON流式写入)。
+     */
+    @Benchmark
+    public int encodeModel(){
+        final PooledBuffer frame = encoder.encode(new FixedHeader(model.getType(), true), model);
+        final int len = frame.buffer().remaining();
+        frame.release();
+        return len;
+    }
+
+    /**
+     * 请求数据模型编码(紧凑二进制消息体)。
+     */
+    @Benchmark
+    public int encodeBinaryModel(){
+        final PooledBuffer frame = encoder.encode(new FixedHeader(model.getType(), true, BodyFormat.Binary), model);
+        final int len = frame.buffer().remaining();
+        frame.release();
+        return len;
+    }
+}
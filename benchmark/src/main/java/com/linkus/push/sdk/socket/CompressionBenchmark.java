@@ -0,0 +1,87 @@
+package com.linkus.push.sdk.socket;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * 消息体压缩基准测试(CPU开销与节省字节数)。
+ * <p>
+ * 初始化时输出原始、预置字典压缩及无字典压缩后的字节数,与各方法耗时对照。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompressionBenchmark {
+
+    @Param({"16", "64", "1024"})
+    public int contentSize;
+
+    private byte[] raw, compressed, plainOut;
+    private Deflater plain;
+
+    @Setup
+    public void setup(){
+        raw = BenchmarkFrames.publishJson(1, contentSize).getBytes(Codec.UTF8);
+        final PooledBuffer frame = FrameCompressor.deflate(raw, 0, raw.length, 0);
+        if(frame == null) throw new IllegalStateException("压缩无收益!");
+        compressed = new byte[frame.buffer().position()];
+        frame.buffer().flip();
+        frame.buffer().get(compressed);
+        frame.release();
+        //无预置字典对照
+        plain = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        plainOut = new byte[raw.length + 64];
+        final int plainLen = deflatePlain();
+        System.out.println("\nraw=" + raw.length + " bytes, dictionary=" + compressed.length
+                + " bytes, plain=" + plainLen + " bytes");
+    }
+
+    @TearDown
+    public void tearDown(){
+        plain.end();
+    }
+
+    /**
+     * 预置字典压缩。
+     */
+    @Benchmark
+    public int deflate(){
+        final PooledBuffer frame = FrameCompressor.deflate(raw, 0, raw.length, Codec.HEADER_MAX_LEN);
+        if(frame == null) return raw.length;
+        final int len = frame.buffer().position();
+        frame.release();
+        return len;
+    }
+
+    /**
+     * 无字典压缩(对照)。
+     */
+    @Benchmark
+    public int deflatePlain(){
+        plain.reset();
+        plain.setInput(raw);
+        plain.finish();
+        int len = 0;
+        while (!plain.finished()){
+            len += plain.deflate(plainOut, len, plainOut.length - len);
+        }
+        return len;
+    }
+
+    /**
+     * 预置字典解压。
+     */
+    @Benchmark
+    public int inflate(){
+        final PooledBuffer out = FrameCompressor.inflate(compressed, 0, compressed.length, FrameCompressor.MAX_INFLATE_SIZE);
+        final int len = out.buffer().position();
+        out.release();
+        return len;
+    }
+}
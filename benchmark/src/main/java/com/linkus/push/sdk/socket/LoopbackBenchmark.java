@@ -0,0 +1,119 @@
+package com.linkus.push.sdk.socket;
+
+import com.alibaba.fastjson.JSON;
+import com.linkus.push.sdk.data.IAccessConfig;
+import com.linkus.push.sdk.data.SocketConfig;
+import com.linkus.push.sdk.models.AckResult;
+import com.linkus.push.sdk.models.PublishModel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内回环基准测试(连接→订阅→推送→应答全流程,不经过网络)。
+ * <p>
+ * 每次操作由 LoopbackServer 下发一批推送消息,等待 PushSocket 全部应答后结束,
+ * 覆盖传输、解码、接收队列、消息处理器、去重及应答编码发送。
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoopbackBenchmark {
+    private static final int BATCH = 100;
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    @Param({"64", "1024"})
+    public int contentSize;
+
+    private LoopbackServer server;
+    private PushSocket socket;
+    private int index = 0;
+    private long acked = 0;
+
+    @Setup
+    public void setup(final Blackhole blackhole) throws InterruptedException {
+        server = new LoopbackServer();
+        socket = new PushSocket(null, new PushSocket.PushSocketListener() {
+            @Override
+            public void socketChangedRunStatus(boolean isRunning) {
+            }
+
+            @Override
+            public void socketErrorMessage(AckResult status, String msg) {
+                blackhole.consume(msg);
+            }
+
+            @Override
+            public void socketPublish(PublishModel model) {
+                blackhole.consume(model.getContent());
+            }
+
+            @Override
+            public IAccessConfig loadAccessConfig() {
+                return new BenchmarkAccess();
+            }
+        });
+        socket.setTransportFactory(server.factory());
+        socket.startSocket(new SocketConfig(JSON.parseObject("{\"serverIP\":\"loopback\",\"port\":1}")));
+        if(!server.awaitReceived(MessageType.Connect, 1, TIMEOUT_MILLIS)) throw new IllegalStateException("连接超时!");
+        socket.addOrChangeTag();
+        if(!server.awaitReceived(MessageType.Subscribe, 1, TIMEOUT_MILLIS)) throw new IllegalStateException("订阅超时!");
+    }
+
+    @TearDown
+    public void tearDown(){
+        socket.closeSocket();
+    }
+
+    /**
+     * 下发一批推送消息并等待全部应答。
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long publishAck() throws InterruptedException {
+        for(int i = 0; i < BATCH; i++){
+            server.publish(BenchmarkFrames.publishJson(index++, contentSize));
+        }
+        acked += BATCH;
+        if(!server.awaitReceived(MessageType.Puback, acked, TIMEOUT_MILLIS)) throw new IllegalStateException("应答超时!");
+        return acked;
+    }
+
+    //基准测试接入配置
+    private static final class BenchmarkAccess implements IAccessConfig {
+        @Override
+        public String getUrl() {
+            return "http://loopback";
+        }
+
+        @Override
+        public String getAccount() {
+            return "benchmark-account";
+        }
+
+        @Override
+        public String getPassword() {
+            return "benchmark-password";
+        }
+
+        @Override
+        public String getDeviceToken() {
+            return "0123456789abcdef0123456789abcdef";
+        }
+
+        @Override
+        public String getDeviceName() {
+            return "benchmark-device";
+        }
+
+        @Override
+        public String getTag() {
+            return "benchmark-tag";
+        }
+    }
+}
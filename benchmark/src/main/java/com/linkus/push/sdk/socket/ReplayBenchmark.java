@@ -0,0 +1,121 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.data.IAccessConfig;
+import com.linkus.push.sdk.models.AckResult;
+import com.linkus.push.sdk.models.PublishModel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 录制流量回放基准测试。
+ * <p>
+ * 通过 -p capture=录制文件路径 回放 PushSocket.setTrafficCapture 录制的真实流量;
+ * 未指定时生成模拟流量(重连后的消息突发 + 大内容推送消息 + 心跳应答,按1024字节读取边界录制)。
+ * 每次操作全速回放整个录制文件。经 PushSocket 回放时,重复回放的推送ID会被去重逻辑过滤,与线上重复投递一致。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReplayBenchmark {
+    private static final int READ_SIZE = 1024, BURST = 50, LARGE = 5, LARGE_CONTENT = 16 * 1024;
+
+    @Param({""})
+    public String capture;
+
+    private TrafficReplayer replayer;
+    private CodecDecoder decoder;
+    private PushSocket socket;
+
+    @Setup
+    public void setup(final Blackhole blackhole) throws IOException {
+        File file;
+        if(capture == null || capture.length() == 0){
+            file = File.createTempFile("push-capture", ".pscp");
+            file.deleteOnExit();
+            synthesize(file);
+        }else{
+            file = new File(capture);
+        }
+        replayer = new TrafficReplayer(file);
+        System.out.println("\ncapture=" + file + ", records=" + replayer.getRecordCount() + ", bytes=" + replayer.getTotalBytes());
+        decoder = new CodecDecoder(new CodecDecoder.CodecDecoderListener() {
+            @Override
+            public void decode(MessageType type, Object model) {
+                blackhole.consume(model);
+            }
+        });
+        socket = new PushSocket(null, new PushSocket.PushSocketListener() {
+            @Override
+            public void socketChangedRunStatus(boolean isRunning) {
+            }
+
+            @Override
+            public void socketErrorMessage(AckResult status, String msg) {
+                blackhole.consume(msg);
+            }
+
+            @Override
+            public void socketPublish(PublishModel model) {
+                blackhole.consume(model.getContent());
+            }
+
+            @Override
+            public IAccessConfig loadAccessConfig() {
+                return null;
+            }
+        });
+    }
+
+    //生成模拟流量录制文件
+    private static void synthesize(final File file) throws IOException {
+        final TrafficRecorder recorder = new TrafficRecorder(file);
+        try {
+            recorder.markConnect();
+            //重连后的消息突发
+            final byte[][] burst = new byte[BURST + 1][];
+            burst[0] = BenchmarkFrames.frame(MessageType.Connack, BenchmarkFrames.ackJson());
+            for(int i = 1; i <= BURST; i++){
+                burst[i] = BenchmarkFrames.frame(MessageType.Publish, BenchmarkFrames.publishJson(i, 256));
+            }
+            recordReads(recorder, BenchmarkFrames.concat(burst));
+            //大内容推送消息及心跳应答
+            for(int i = 0; i < LARGE; i++){
+                recordReads(recorder, BenchmarkFrames.frame(MessageType.Publish, BenchmarkFrames.publishJson(BURST + 1 + i, LARGE_CONTENT)));
+                recordReads(recorder, BenchmarkFrames.frame(MessageType.Pingresp, BenchmarkFrames.responseJson(MessageType.Pingresp, i, 0)));
+            }
+        }finally {
+            recorder.close();
+        }
+    }
+
+    //按socket读取大小分段录制
+    private static void recordReads(final TrafficRecorder recorder, final byte[] stream){
+        for(int offset = 0; offset < stream.length; offset += READ_SIZE){
+            recorder.record(stream, offset, Math.min(READ_SIZE, stream.length - offset));
+        }
+    }
+
+    /**
+     * 回放至解码器(解码+解析)。
+     */
+    @Benchmark
+    public void replayDecoder() throws InterruptedException {
+        replayer.replay(decoder, false);
+    }
+
+    /**
+     * 回放至推送socket(解码+消息处理器+PushSocketListener回调)。
+     */
+    @Benchmark
+    public void replaySocket() throws InterruptedException {
+        replayer.replay(socket, false);
+    }
+}
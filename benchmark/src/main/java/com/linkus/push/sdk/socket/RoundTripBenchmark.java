@@ -0,0 +1,103 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.models.AckModel;
+import com.linkus.push.sdk.models.PingResponseModel;
+import com.linkus.push.sdk.models.PublishModel;
+import com.linkus.push.sdk.models.RequestModel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编码→解码往返基准测试(按消息类型)。
+ * <p>
+ * 客户端上行消息类型以请求数据模型编码,服务器下行消息类型以消息体JSON编码;
+ * 解码端对下行消息使用内置解析器,对上行消息注册仅计数长度的处理器。
+ * </p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoundTripBenchmark {
+
+    @Param({"Connect", "Connack", "Publish", "Puback", "Pubrel", "Subscribe", "Suback",
+            "Unsubscribe", "Unsuback", "Pingreq", "Pingresp", "Disconnect"})
+    public String type;
+
+    @Param({"256"})
+    public int contentSize;
+
+    private MessageType messageType;
+    private RequestModel model;
+    private String json;
+    private CodecEncoder encoder;
+    private CodecDecoder decoder;
+
+    @Setup
+    public void setup(final Blackhole blackhole){
+        messageType = MessageType.valueOf(type);
+        model = BenchmarkFrames.requestModel(messageType, 1);
+        json = BenchmarkFrames.responseJson(messageType, 1, contentSize);
+        encoder = new CodecEncoder();
+        final MessageHandler<AckModel> ack = new MessageHandlers.AckHandler() {
+            @Override
+            public void handle(MessageType type, AckModel model) {
+                blackhole.consume(model);
+            }
+        };
+        //上行消息仅计数长度
+        final MessageHandler<Integer> raw = new MessageHandler<Integer>() {
+            @Override
+            public Integer parse(MessageType type, BodyFormat format, byte[] payload, int offset, int length) {
+                return length;
+            }
+
+            @Override
+            public void handle(MessageType type, Integer model) {
+                blackhole.consume(model);
+            }
+        };
+        final MessageHandlerRegistry registry = new MessageHandlerRegistry()
+                .register(MessageType.Connack, ack)
+                .register(MessageType.Pubrel, ack)
+                .register(MessageType.Suback, ack)
+                .register(MessageType.Unsuback, ack)
+                .register(MessageType.Publish, new MessageHandlers.PublishHandler() {
+                    @Override
+                    public void handle(MessageType type, PublishModel model) {
+                        blackhole.consume(model.getPushId());
+                    }
+                })
+                .register(MessageType.Pingresp, new MessageHandlers.PingResponseHandler() {
+                    @Override
+                    public void handle(MessageType type, PingResponseModel model) {
+                        blackhole.consume(model);
+                    }
+                });
+        for(MessageType t : MessageType.values()){
+            if(registry.get(t) == null) registry.register(t, raw);
+        }
+        decoder = new CodecDecoder(registry);
+    }
+
+    /**
+     * 编码后立即解码。
+     */
+    @Benchmark
+    public void roundTrip(){
+        final PooledBuffer frame = (model != null)
+                ? encoder.encode(new FixedHeader(messageType, true), model)
+                : encoder.encode(new FixedHeader(messageType, false), json);
+        try {
+            final ByteBuffer buf = frame.buffer();
+            decoder.addDecode(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+        } finally {
+            frame.release();
+        }
+    }
+}
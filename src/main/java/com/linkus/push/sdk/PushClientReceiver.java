@@ -6,8 +6,13 @@ import android.content.Intent;
 import android.os.AsyncTask;
 import com.linkus.push.sdk.models.AckResult;
 import com.linkus.push.sdk.models.PublishModel;
+import com.linkus.push.sdk.socket.PushSocket;
 import com.linkus.push.sdk.utils.LogWrapper;
 
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.linkus.push.sdk.PushClientService.*;
@@ -18,6 +23,8 @@ import static com.linkus.push.sdk.PushClientService.*;
  */
 public abstract class PushClientReceiver extends BroadcastReceiver {
     private final static LogWrapper logger = LogWrapper.getLog(PushClientReceiver.class);
+    //网络变化广播(ConnectivityManager.CONNECTIVITY_ACTION)
+    private static final String CONNECTIVITY_ACTION = "android.net.conn.CONNECTIVITY_CHANGE";
     private final AtomicReference<Context> refContext = new AtomicReference<>(null);
     private final Object lock = new Object();
 
@@ -68,8 +75,12 @@ public abstract class PushClientReceiver extends BroadcastReceiver {
                         //启动守护服务
                         context.startService(new Intent(context, PushClientDeamonService.class));
                     }
-                    //启动通讯服务
-                    context.startService(new Intent(context, PushClientService.class));
+                    //启动通讯服务(网络变化时立即重连)
+                    final Intent service = new Intent(context, PushClientService.class);
+                    if (CONNECTIVITY_ACTION.equalsIgnoreCase(action)) {
+                        service.setAction(PushSocket.ACTION_NETWORK_CHANGED);
+                    }
+                    context.startService(service);
                 }
             }catch (Exception e){
                 logger.error("onReceive-[" + action + "]-exception:" + e.getMessage(), e);
@@ -99,6 +110,12 @@ public abstract class PushClientReceiver extends BroadcastReceiver {
             @Override
             protected PublishModel doInBackground(Void... voids) {
                 try {
+                    //超大消息体临时文件(在后台线程处理,默认读取后按普通推送消息处理)
+                    final String path = intent.getStringExtra(PUSH_BROADCAST_PARAMS_CONTENT_FILE);
+                    if (path != null && path.length() > 0) {
+                        logger.info("receiverPublishHandler-file=>" + path);
+                        return publishFileHandler(new File(path));
+                    }
                     //获取推送消息内容
                     final String content = getBroadcastContent(intent);
                     logger.info("receiverPublishHandler=>" + content);
@@ -135,6 +152,17 @@ public abstract class PushClientReceiver extends BroadcastReceiver {
         }.execute((Void)null);
     }
 
+    //超大消息体临时文件处理(处理完成后删除)
+    private PublishModel publishFileHandler(final File file) throws IOException {
+        try {
+            return receiverPublishFileHandler(file, new PublishModel(file));
+        }finally {
+            if(file.exists() && !file.delete()){
+                logger.warn("receiverPublishHandler-删除临时文件失败=>" + file);
+            }
+        }
+    }
+
     //接收错误消息处理
     private void receiverErrorHandler(final Intent intent) throws Exception{
         new AsyncTask<Void,Void,Object[]>(){
@@ -182,6 +210,33 @@ public abstract class PushClientReceiver extends BroadcastReceiver {
      */
     protected abstract void receiverPublishHandler(final String title, final String content, final PublishModel full);
 
+    /**
+     * 接收超大推送消息处理(消息体超过内存上限时落盘为临时文件,在后台线程调用)。
+     * <p>
+     * 默认实现读取临时文件,返回完整推送消息交由 receiverPublishHandler 处理;
+     * 子类可重写以通过 file 或 full.openContent() 流式读取,返回null表示已处理。方法返回后临时文件被删除。
+     * </p>
+     * @param file
+     * 消息体临时文件(JSON格式)。
+     * @param full
+     * 推送消息数据(仅含推送ID)。
+     * @return 交由 receiverPublishHandler 处理的推送消息(null表示已处理)。
+     * @throws IOException
+     * 读取临时文件异常。
+     */
+    protected PublishModel receiverPublishFileHandler(final File file, final PublishModel full) throws IOException {
+        final long length = file.length();
+        if(length > Integer.MAX_VALUE) throw new IOException("file too large:" + length);
+        final byte[] data = new byte[(int) length];
+        final DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(data);
+        }finally {
+            in.close();
+        }
+        return new PublishModel(data, 0, data.length);
+    }
+
     /**
      * 接收错误消息处理。
      * @param status
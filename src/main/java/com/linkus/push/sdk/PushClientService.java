@@ -37,6 +37,9 @@ public final class PushClientService extends Service implements PushSocket.PushS
     //消息内容
     static final String PUSH_BROADCAST_PARAMS_CONTENT = "content";
 
+    //消息内容临时文件(超大消息体落盘时代替消息内容)
+    static final String PUSH_BROADCAST_PARAMS_CONTENT_FILE = "content_file";
+
     private boolean isStart = false, isRun = false;
 
     private final AtomicReference<AccessData> refAccess = new AtomicReference<>();
@@ -86,6 +89,10 @@ public final class PushClientService extends Service implements PushSocket.PushS
                             socket.startReconnect();
                             break;
                         }
+                        case PushSocket.ACTION_NETWORK_CHANGED: {//网络变化
+                            socket.networkChanged();
+                            break;
+                        }
                         default:
                             break;
                     }
@@ -170,8 +177,12 @@ public final class PushClientService extends Service implements PushSocket.PushS
         final Intent intent = new Intent(PUSH_BROADCAST_PUBLISH);
         //接入帐号
         intent.putExtra(PUSH_BROADCAST_PARAMS_ACCOUNT, access.getAccount());
-        //广播消息内容
-        intent.putExtra(PUSH_BROADCAST_PARAMS_CONTENT, model.toJson());
+        //广播消息内容(超大消息体传递临时文件路径,由接收方读取后删除)
+        if(model.getFile() != null){
+            intent.putExtra(PUSH_BROADCAST_PARAMS_CONTENT_FILE, model.getFile().getAbsolutePath());
+        }else {
+            intent.putExtra(PUSH_BROADCAST_PARAMS_CONTENT, model.toJson());
+        }
         logger.info("socketPublish[发送推送消息广播]=>" + intent);
         //发送推送消息广播
         sendBroadcast(intent);
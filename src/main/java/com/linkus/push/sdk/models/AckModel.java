@@ -10,9 +10,11 @@ import com.alibaba.fastjson.JSONObject;
 public class AckModel {
     private static final String MODEL_RESULT = "result";
     private static final String MODEL_MSG    = "msg";
+    private static final String MODEL_FORMAT = "format";
 
     private AckResult result;
     private String msg;
+    private Integer format;
 
     /**
      * 构造函数。
@@ -23,7 +25,23 @@ public class AckModel {
         if(ackJson == null || ackJson.length() == 0){
             throw new IllegalArgumentException("ackJson");
         }
-        final JSONObject obj = JSON.parseObject(ackJson);
+        parse(JSON.parseObject(ackJson));
+    }
+
+    /**
+     * 构造函数(二进制消息体解码后的数据对象)。
+     * @param obj
+     * 应答数据对象。
+     */
+    public AckModel(final JSONObject obj){
+        if(obj == null){
+            throw new IllegalArgumentException("obj");
+        }
+        parse(obj);
+    }
+
+    //解析应答数据
+    private void parse(final JSONObject obj){
         if(obj != null){
             if(obj.containsKey(MODEL_RESULT)) {
                 this.result = AckResult.parse(obj.getIntValue(MODEL_RESULT));
@@ -31,6 +49,9 @@ public class AckModel {
             if(obj.containsKey(MODEL_MSG)) {
                 this.msg = obj.getString(MODEL_MSG);
             }
+            if(obj.containsKey(MODEL_FORMAT)) {
+                this.format = obj.getInteger(MODEL_FORMAT);
+            }
         }
     }
 
@@ -49,4 +70,12 @@ public class AckModel {
     public String getMsg() {
         return msg;
     }
+
+    /**
+     * 获取服务器选定的消息体格式位掩码(连接应答;1-二进制,2-压缩)。
+     * @return 消息体格式位掩码,未协商时为null。
+     */
+    public Integer getFormat() {
+        return format;
+    }
 }
\ No newline at end of file
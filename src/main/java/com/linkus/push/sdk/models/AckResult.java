@@ -30,7 +30,7 @@ public enum AckResult {
      */
     DeviceError(-400);
 
-    private int val;
+    private final int val;
     /**
      * 构造函数。
      * @param val
@@ -56,9 +56,22 @@ public enum AckResult {
      * 枚举对象。
      */
     public static AckResult parse(final int val){
-        for(AckResult type : values()){
-            if(type.val == val) return type;
+        final int index = -val;
+        return (index >= 0 && index < LOOKUP.length) ? LOOKUP[index] : null;
+    }
+
+    //枚举值下标查找表(枚举值均为0或负数,以相反数为下标)
+    private static final AckResult[] LOOKUP;
+
+    static {
+        final AckResult[] results = values();
+        int max = 0;
+        for(AckResult result : results){
+            max = Math.max(max, -result.val);
+        }
+        LOOKUP = new AckResult[max + 1];
+        for(AckResult result : results){
+            LOOKUP[-result.val] = result;
         }
-        return null;
     }
 }
\ No newline at end of file
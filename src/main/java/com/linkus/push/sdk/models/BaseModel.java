@@ -1,7 +1,11 @@
 package com.linkus.push.sdk.models;
 
 import com.alibaba.fastjson.JSON;
+import com.linkus.push.sdk.socket.BinaryCodec;
+import com.linkus.push.sdk.socket.Codec;
 import com.linkus.push.sdk.utils.DigestUtils;
+
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /**
@@ -94,6 +98,56 @@ public abstract class BaseModel {
         return JSON.toJSONString(params);
     }
 
+    /**
+     * 按字段名升序写入签名参数(流式输出使用)。
+     * @param writer
+     * 签名JSON输出。
+     * @return 是否支持流式输出,不支持时以toSignJson输出。
+     */
+    protected boolean writeParameters(final SignJsonWriter writer){
+        return false;
+    }
+
+    /**
+     * 参数签名并以UTF-8 JSON直接写入缓冲区。
+     * @param out
+     * 输出缓冲区(空间不足时抛出BufferOverflowException)。
+     */
+    public final void writeSignJson(final ByteBuffer out){
+        final SignJsonWriter writer = SignJsonWriter.get();
+        if(!writeParameters(writer)){
+            Codec.writeUtf8(toSignJson(), out);
+            return;
+        }
+        checkWriter(writer);
+        writer.writeTo(getToken(), out);
+    }
+
+    /**
+     * 参数签名并以紧凑二进制直接写入缓冲区。
+     * @param out
+     * 输出缓冲区(空间不足时抛出BufferOverflowException)。
+     */
+    public final void writeSignBinary(final ByteBuffer out){
+        final SignJsonWriter writer = SignJsonWriter.get();
+        if(!writeParameters(writer)){
+            BinaryCodec.writeObject(JSON.parseObject(toSignJson()), out);
+            return;
+        }
+        checkWriter(writer);
+        writer.writeBinaryTo(getToken(), out);
+    }
+
+    //检查流式输出参数
+    private void checkWriter(final SignJsonWriter writer){
+        if(!writer.contains(PARAMS_ACCOUNT)){
+            throw new RuntimeException("未设置["+ PARAMS_ACCOUNT +"]参数数据!");
+        }
+        if(getToken() == null || getToken().length() == 0){
+            throw new IllegalArgumentException("未设置接入密钥!");
+        }
+    }
+
     /**
      * 创建参数签名。
      * @param params
@@ -21,9 +21,14 @@ public class ConnectRequestModel extends RequestModel {
      * 参数-设备帐号字段。
      */
     private static final String PARAMS_DEVICE_ACCOUNT = "deviceAccount";
+    /**
+     * 参数-客户端支持的消息体格式字段(位掩码:1-二进制,2-压缩;未设置时不发送)。
+     */
+    private static final String PARAMS_FORMATS = "formats";
 
     private String deviceName,deviceAccount;
     private final Integer deviceType;
+    private Integer formats;
 
     /**
      * 构造函数。
@@ -50,10 +55,23 @@ public class ConnectRequestModel extends RequestModel {
         params.put(PARAMS_DEVICE_TYPE,getDeviceType());
         //5.设备帐号
         params.put(PARAMS_DEVICE_ACCOUNT, getDeviceAccount());
+        //6.支持的消息体格式
+        params.put(PARAMS_FORMATS, getFormats());
         //
         return params;
     }
 
+    @Override
+    protected boolean writeParameters(final SignJsonWriter writer) {
+        writer.field(PARAMS_ACCOUNT, getAccount())
+                .field(PARAMS_DEVICE_ACCOUNT, getDeviceAccount())
+                .field(PARAMS_DEVICE_ID, getDeviceId())
+                .field(PARAMS_DEVICE_NAME, getDeviceName())
+                .field(PARAMS_DEVICE_TYPE, getDeviceType())
+                .field(PARAMS_FORMATS, getFormats());
+        return true;
+    }
+
     /**
      * 获取设备名称。
      * @return 设备名称。
@@ -95,4 +113,21 @@ public class ConnectRequestModel extends RequestModel {
     public Integer getDeviceType() {
         return deviceType;
     }
+
+    /**
+     * 获取客户端支持的消息体格式(位掩码)。
+     * @return 消息体格式位掩码。
+     */
+    public Integer getFormats() {
+        return formats;
+    }
+
+    /**
+     * 设置客户端支持的消息体格式(位掩码,null表示仅支持JSON且不发送)。
+     * @param formats
+     * 消息体格式位掩码。
+     */
+    public void setFormats(Integer formats) {
+        this.formats = formats;
+    }
 }
\ No newline at end of file
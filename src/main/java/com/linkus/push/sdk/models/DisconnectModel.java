@@ -23,4 +23,11 @@ public class DisconnectModel extends RequestModel {
         params.put(PARAMS_DEVICE_ID, getDeviceId());
         return params;
     }
+
+    @Override
+    protected boolean writeParameters(final SignJsonWriter writer) {
+        writer.field(PARAMS_ACCOUNT, getAccount())
+                .field(PARAMS_DEVICE_ID, getDeviceId());
+        return true;
+    }
 }
\ No newline at end of file
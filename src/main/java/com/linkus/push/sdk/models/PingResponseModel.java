@@ -53,6 +53,16 @@ public class PingResponseModel {
         return afterConnect;
     }
 
+    /**
+     * 解析心跳反馈数据对象(二进制消息体解码后的数据对象)。
+     * @param obj
+     * 数据对象。
+     * @return 心跳反馈对象。
+     */
+    public static PingResponseModel parse(final JSONObject obj){
+        return new PingResponseModel(obj);
+    }
+
     /**
      * 解析心跳反馈JSON。
      * @param json
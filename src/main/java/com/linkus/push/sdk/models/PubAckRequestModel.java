@@ -28,6 +28,14 @@ public class PubAckRequestModel extends RequestModel {
         return params;
     }
 
+    @Override
+    protected boolean writeParameters(final SignJsonWriter writer) {
+        writer.field(PARAMS_ACCOUNT, getAccount())
+                .field(PARAMS_DEVICE_ID, getDeviceId())
+                .field(PARAMS_PUSH_ID, getPushId());
+        return true;
+    }
+
     /**
      * 获取推送消息ID。
      * @return 推送消息ID。
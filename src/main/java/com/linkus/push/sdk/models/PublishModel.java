@@ -2,8 +2,17 @@ package com.linkus.push.sdk.models;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.linkus.push.sdk.socket.Codec;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -16,16 +25,103 @@ public class PublishModel {
     private static final String PUBLISH_CONTENT = "content";
     private static final String PUBLISH_APS = "aps";
 
-    private ApsModel aps;
+    private static final byte[] PUBLISH_PUSH_ID_BYTES = PUBLISH_PUSH_ID.getBytes(Codec.UTF8);
+    //临时文件中推送ID字符串的长度上限(字节)
+    private static final int FILE_PUSH_ID_MAX = 1024;
+
+    private final byte[] data;
+    private final File file;
+    private JSONObject source;
     private String pushId,contentId,content,json;
+    private ApsModel aps;
+    private boolean parsed = false;
 
     /**
      * 构造函数。
+     * @param json
+     * json字符串
+     */
+    public PublishModel(final String json){
+        this.json = json;
+        this.data = null;
+        this.file = null;
+        parse();
+    }
+
+    /**
+     * 构造函数(二进制消息体解码后的数据对象)。
      * @param model
-     * 消息数据模型。
+     * 消息数据对象。
+     */
+    public PublishModel(final JSONObject model){
+        this.data = null;
+        this.file = null;
+        this.source = model;
+        parse();
+    }
+
+    /**
+     * 构造函数(仅扫描提取推送ID,其余字段首次访问时解析)。
+     * @param payload
+     * 消息体UTF-8字节数据。
+     * @param offset
+     * 起始位置。
+     * @param length
+     * 数据长度。
+     */
+    public PublishModel(final byte[] payload, final int offset, final int length){
+        this.data = new byte[length];
+        this.file = null;
+        System.arraycopy(payload, offset, this.data, 0, length);
+        this.pushId = scanPushId(this.data);
+        if(this.pushId == null){//未扫描到字符串类型的推送ID
+            parse();
+        }
+    }
+
+    /**
+     * 构造函数(超大消息体临时文件,流式扫描提取推送ID,不加载消息体)。
+     * <p>
+     * 其余字段(内容、aps等)不解析,须通过 openContent 流式读取。
+     * </p>
+     * @param file
+     * 消息体临时文件(JSON格式)。
+     */
+    public PublishModel(final File file){
+        if(file == null) throw new IllegalArgumentException("file");
+        this.data = null;
+        this.file = file;
+        this.parsed = true;
+        try {
+            final InputStream in = new BufferedInputStream(new FileInputStream(file));
+            try {
+                this.pushId = scanPushId(in);
+            }finally {
+                in.close();
+            }
+        }catch (IOException e){
+            throw new RuntimeException("读取推送消息文件[" + file + "]失败:" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 打开消息体数据流(超大消息体为临时文件流,使用完毕须关闭)。
+     * @return 消息体JSON数据流。
+     * @throws IOException
+     * 打开临时文件失败。
      */
-    private PublishModel(final JSONObject model){
-        if(model.size() > 0) {
+    public InputStream openContent() throws IOException {
+        if(file != null) return new FileInputStream(file);
+        final String s = toJson();
+        return new ByteArrayInputStream(s == null ? new byte[0] : s.getBytes(Codec.UTF8));
+    }
+
+    //完整解析(超大消息体不解析)
+    private synchronized void parse(){
+        if(parsed) return;
+        parsed = true;
+        final JSONObject model = source != null ? source : JSON.parseObject(toJson());
+        if(model != null && model.size() > 0) {
             if (model.containsKey(PUBLISH_PUSH_ID)) {//1
                 this.pushId = model.getString(PUBLISH_PUSH_ID);
             }
@@ -46,21 +142,12 @@ public class PublishModel {
         }
     }
 
-    /**
-     * 构造函数。
-     * @param json
-     * json字符串
-     */
-    public PublishModel(final String json){
-        this(JSON.parseObject(json));
-        this.json = json;
-    }
-
     /**
      * 获取aps格式消息。
-     * @return aps格式消息。
+     * @return aps格式消息(超大消息体返回null)。
      */
     public ApsModel getAps() {
+        parse();
         return aps;
     }
 
@@ -77,30 +164,225 @@ public class PublishModel {
      * @return 推送消息内容ID。
      */
     public String getContentId() {
+        parse();
         return contentId;
     }
 
     /**
      * 获取推送消息内容。
-     * @return 推送消息内容。
+     * @return 推送消息内容(超大消息体返回null,通过 openContent 读取)。
      */
     public String getContent() {
+        parse();
         return content;
     }
 
+    /**
+     * 获取消息体临时文件(超大消息体落盘时)。
+     * @return 消息体临时文件,未落盘时返回null。
+     */
+    public File getFile() {
+        return file;
+    }
+
     /**
      * json字符串。
-     * @return json字符串。
+     * @return json字符串(超大消息体返回null,通过 openContent 读取)。
      */
-    public String toJson(){
+    public synchronized String toJson(){
+        if(this.json == null){
+            if(this.data != null){
+                this.json = new String(this.data, Codec.UTF8);
+            }else if(this.source != null){
+                this.json = JSON.toJSONString(this.source);
+            }
+        }
         return this.json;
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
+        if(this.file != null){//临时文件不加载
+            return "PublishModel[pushId=" + pushId + ",file=" + file + "]";
+        }
         return toJson();
     }
 
+    /**
+     * 扫描顶层字段中的推送ID(仅支持字符串值)。
+     * @param data
+     * JSON字节数据。
+     * @return 推送ID,未找到时返回null。
+     */
+    private static String scanPushId(final byte[] data){
+        final int end = data.length;
+        int pos = skipWhitespace(data, 0);
+        if(pos >= end || data[pos] != '{') return null;
+        pos++;
+        while (true){
+            pos = skipWhitespace(data, pos);
+            if(pos >= end || data[pos] != '"') return null;
+            //字段名
+            final int keyStart = pos + 1;
+            pos = skipString(data, pos);
+            if(pos < 0) return null;
+            final boolean matched = (pos - 1 - keyStart) == PUBLISH_PUSH_ID_BYTES.length
+                    && regionMatches(data, keyStart, PUBLISH_PUSH_ID_BYTES);
+            pos = skipWhitespace(data, pos);
+            if(pos >= end || data[pos] != ':') return null;
+            pos = skipWhitespace(data, pos + 1);
+            if(pos >= end) return null;
+            if(matched){
+                return data[pos] == '"' ? readString(data, pos) : null;
+            }
+            //跳过字段值
+            pos = skipValue(data, pos);
+            if(pos < 0) return null;
+            pos = skipWhitespace(data, pos);
+            if(pos >= end || data[pos] != ',') return null;
+            pos++;
+        }
+    }
+
+    /**
+     * 流式扫描顶层字段中的推送ID(仅支持字符串值,找到后即停止读取)。
+     * @param in
+     * JSON数据流。
+     * @return 推送ID,未找到时返回null。
+     * @throws IOException
+     * 读取失败。
+     */
+    private static String scanPushId(final InputStream in) throws IOException {
+        final ByteArrayOutputStream key = new ByteArrayOutputStream(16);
+        int depth = 0, b;
+        boolean expectKey = false, matched = false;
+        while ((b = in.read()) >= 0){
+            switch (b){
+                case '{':
+                case '[':
+                    if(++depth == 1) expectKey = b == '{';
+                    break;
+                case '}':
+                case ']':
+                    depth--;
+                    break;
+                case ',':
+                    if(depth == 1) expectKey = true;
+                    break;
+                case ':':
+                    if(depth == 1 && matched){//字段值
+                        while ((b = in.read()) == ' ' || b == '\t' || b == '\r' || b == '\n'){
+                            //跳过空白字符
+                        }
+                        if(b != '"') return null;
+                        key.reset();
+                        key.write('"');
+                        if(!readString(in, key, FILE_PUSH_ID_MAX) || key.size() > FILE_PUSH_ID_MAX) return null;
+                        key.write('"');
+                        final byte[] value = key.toByteArray();
+                        return readString(value, 0);
+                    }
+                    break;
+                case '"':{
+                    final boolean isKey = depth == 1 && expectKey;
+                    key.reset();
+                    if(!readString(in, isKey ? key : null, PUBLISH_PUSH_ID_BYTES.length)) return null;
+                    if(isKey){
+                        matched = Arrays.equals(key.toByteArray(), PUBLISH_PUSH_ID_BYTES);
+                        expectKey = false;
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        return null;
+    }
+
+    //流式读取字符串至结束引号(out为null时跳过;超过长度上限时不再保存,保存的内容与目标不再匹配)
+    private static boolean readString(final InputStream in, final ByteArrayOutputStream out, final int max) throws IOException {
+        int b;
+        while ((b = in.read()) >= 0){
+            if(b == '"') return true;
+            if(out != null && out.size() <= max) out.write(b);
+            if(b == '\\'){
+                if((b = in.read()) < 0) return false;
+                if(out != null && out.size() <= max) out.write(b);
+            }
+        }
+        return false;
+    }
+
+    //跳过空白字符
+    private static int skipWhitespace(final byte[] data, int pos){
+        while (pos < data.length && (data[pos] == ' ' || data[pos] == '\t' || data[pos] == '\r' || data[pos] == '\n')){
+            pos++;
+        }
+        return pos;
+    }
+
+    //跳过字符串(pos指向起始引号),返回结束引号后的位置
+    private static int skipString(final byte[] data, int pos){
+        pos++;
+        while (pos < data.length){
+            final byte b = data[pos++];
+            if(b == '\\'){
+                pos++;
+            }else if(b == '"'){
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    //跳过字段值,返回字段值后的位置
+    private static int skipValue(final byte[] data, int pos){
+        if(data[pos] == '"') return skipString(data, pos);
+        if(data[pos] == '{' || data[pos] == '['){
+            int depth = 0;
+            while (pos < data.length){
+                final byte b = data[pos];
+                if(b == '"'){
+                    pos = skipString(data, pos);
+                    if(pos < 0) return -1;
+                    continue;
+                }
+                if(b == '{' || b == '[') depth++;
+                else if(b == '}' || b == ']'){
+                    if(--depth == 0) return pos + 1;
+                }
+                pos++;
+            }
+            return -1;
+        }
+        //数字、true/false/null
+        while (pos < data.length && data[pos] != ',' && data[pos] != '}'){
+            pos++;
+        }
+        return pos;
+    }
+
+    //读取字符串值(pos指向起始引号)
+    private static String readString(final byte[] data, final int pos){
+        final int end = skipString(data, pos);
+        if(end < 0) return null;
+        for(int i = pos + 1; i < end - 1; i++){
+            if(data[i] == '\\'){//含转义字符,交由JSON解析
+                return JSON.parseObject("{\"v\":" + new String(data, pos, end - pos, Codec.UTF8) + "}").getString("v");
+            }
+        }
+        return new String(data, pos + 1, end - pos - 2, Codec.UTF8);
+    }
+
+    //字节比较
+    private static boolean regionMatches(final byte[] data, final int offset, final byte[] target){
+        for(int i = 0; i < target.length; i++){
+            if(data[offset + i] != target[i]) return false;
+        }
+        return true;
+    }
+
     /**
      * Apns消息格式。
      */
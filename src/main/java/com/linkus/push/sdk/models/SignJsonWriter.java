@@ -0,0 +1,272 @@
+package com.linkus.push.sdk.models;
+
+import com.linkus.push.sdk.socket.BinaryCodec;
+import com.linkus.push.sdk.socket.Codec;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 签名JSON流式输出(按字段名升序收集参数,计算签名后以UTF-8 JSON或紧凑二进制直接写入缓冲区)。
+ * <p>
+ * 签名规则与 BaseModel.createSign 一致:排除null、空白字符串及0值参数,
+ * 按"key=value"升序以"&amp;"拼接后追加接入密钥做MD5。字段名升序与"key=value"升序等价。
+ * 每个线程复用一个实例,不能跨线程使用。
+ * </p>
+ */
+public final class SignJsonWriter {
+    private static final String PARAMS_SIGN = "sign";
+    private static final int MAX_FIELDS = 8, MD5_LEN = 16;
+    private static final byte[] DIGITS_LOWER = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    private static final ThreadLocal<SignJsonWriter> local = new ThreadLocal<SignJsonWriter>(){
+        @Override
+        protected SignJsonWriter initialValue() {
+            return new SignJsonWriter();
+        }
+    };
+
+    private final String[] keys = new String[MAX_FIELDS];
+    private final String[] strValues = new String[MAX_FIELDS];
+    private final int[] intValues = new int[MAX_FIELDS];
+    private final boolean[] isInt = new boolean[MAX_FIELDS];
+    private int count = 0;
+
+    private final MessageDigest digest;
+    private final byte[] md5 = new byte[MD5_LEN], hex = new byte[MD5_LEN << 1];
+    private ByteBuffer scratch = ByteBuffer.allocate(256);
+
+    private SignJsonWriter(){
+        try {
+            this.digest = MessageDigest.getInstance("MD5");
+        }catch (NoSuchAlgorithmException e){
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * 获取当前线程的输出实例(已重置)。
+     * @return 输出实例。
+     */
+    static SignJsonWriter get(){
+        final SignJsonWriter writer = local.get();
+        writer.reset();
+        return writer;
+    }
+
+    //重置
+    private void reset(){
+        for(int i = 0; i < count; i++){
+            keys[i] = null;
+            strValues[i] = null;
+        }
+        count = 0;
+    }
+
+    //添加字段(字段名须升序)
+    private int add(final String key){
+        if(count == MAX_FIELDS) throw new IllegalStateException("签名参数超过[" + MAX_FIELDS + "]个!");
+        if(count > 0 && keys[count - 1].compareTo(key) >= 0){
+            throw new IllegalStateException("签名参数须按字段名升序写入!=>" + key);
+        }
+        keys[count] = key;
+        return count++;
+    }
+
+    /**
+     * 写入字符串参数。
+     * @param key
+     * 字段名。
+     * @param value
+     * 字段值(null不输出)。
+     * @return 当前对象。
+     */
+    public SignJsonWriter field(final String key, final String value){
+        final int i = add(key);
+        strValues[i] = value;
+        isInt[i] = false;
+        return this;
+    }
+
+    /**
+     * 写入整数参数。
+     * @param key
+     * 字段名。
+     * @param value
+     * 字段值(null不输出)。
+     * @return 当前对象。
+     */
+    public SignJsonWriter field(final String key, final Integer value){
+        if(value == null) return field(key, (String) null);
+        final int i = add(key);
+        intValues[i] = value;
+        isInt[i] = true;
+        return this;
+    }
+
+    //是否包含字段
+    boolean contains(final String key){
+        for(int i = 0; i < count; i++){
+            if(keys[i].equals(key)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 计算签名并输出JSON。
+     * @param token
+     * 签名令牌。
+     * @param out
+     * 输出缓冲区(空间不足时抛出BufferOverflowException)。
+     */
+    void writeTo(final String token, final ByteBuffer out){
+        out.put((byte) '{');
+        for(int i = 0; i < count; i++){
+            if(!isInt[i] && strValues[i] == null) continue;
+            writeKey(keys[i], out);
+            if(isInt[i]){
+                writeInt(intValues[i], out);
+            }else{
+                writeString(strValues[i], out);
+            }
+            out.put((byte) ',');
+        }
+        //签名
+        writeKey(PARAMS_SIGN, out);
+        out.put((byte) '"');
+        sign(token);
+        for(byte b : md5){
+            out.put(DIGITS_LOWER[(b & 0xF0) >>> 4]);
+            out.put(DIGITS_LOWER[b & 0x0F]);
+        }
+        out.put((byte) '"');
+        out.put((byte) '}');
+    }
+
+    /**
+     * 计算签名并输出紧凑二进制消息体。
+     * @param token
+     * 签名令牌。
+     * @param out
+     * 输出缓冲区(空间不足时抛出BufferOverflowException)。
+     */
+    void writeBinaryTo(final String token, final ByteBuffer out){
+        for(int i = 0; i < count; i++){
+            if(isInt[i]){
+                BinaryCodec.writeLong(keys[i], intValues[i], out);
+            }else if(strValues[i] != null){
+                BinaryCodec.writeString(keys[i], strValues[i], out);
+            }
+        }
+        //签名
+        sign(token);
+        for(int i = 0; i < MD5_LEN; i++){
+            hex[i << 1] = DIGITS_LOWER[(md5[i] & 0xF0) >>> 4];
+            hex[(i << 1) + 1] = DIGITS_LOWER[md5[i] & 0x0F];
+        }
+        BinaryCodec.writeAscii(PARAMS_SIGN, hex, out);
+    }
+
+    //计算签名
+    private void sign(final String token){
+        while (true) {
+            scratch.clear();
+            try {
+                boolean first = true;
+                for (int i = 0; i < count; i++) {
+                    if (isInt[i] ? intValues[i] == 0 : (strValues[i] == null || strValues[i].trim().length() == 0)) {
+                        continue;
+                    }
+                    if (!first) scratch.put((byte) '&');
+                    first = false;
+                    Codec.writeUtf8(keys[i], scratch);
+                    scratch.put((byte) '=');
+                    if (isInt[i]) {
+                        writeInt(intValues[i], scratch);
+                    } else {
+                        Codec.writeUtf8(strValues[i], scratch);
+                    }
+                }
+                if (first) throw new RuntimeException("没有符合筛选后条件的参数!");
+                Codec.writeUtf8(token, scratch);
+                break;
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() << 1);
+            }
+        }
+        digest.reset();
+        digest.update(scratch.array(), 0, scratch.position());
+        try {
+            digest.digest(md5, 0, MD5_LEN);
+        }catch (DigestException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    //输出字段名
+    private static void writeKey(final String key, final ByteBuffer out){
+        out.put((byte) '"');
+        Codec.writeUtf8(key, out);
+        out.put((byte) '"');
+        out.put((byte) ':');
+    }
+
+    //输出整数
+    private static void writeInt(final int value, final ByteBuffer out){
+        if(value == Integer.MIN_VALUE){
+            Codec.writeUtf8("-2147483648", out);
+            return;
+        }
+        int val = value;
+        if(val < 0){
+            out.put((byte) '-');
+            val = -val;
+        }
+        int div = 1;
+        while (val / div >= 10) div *= 10;
+        while (div > 0){
+            out.put((byte) ('0' + (val / div) % 10));
+            div /= 10;
+        }
+    }
+
+    //输出JSON字符串(转义)
+    private static void writeString(final String value, final ByteBuffer out){
+        out.put((byte) '"');
+        final int len = value.length();
+        int start = 0;
+        for(int i = 0; i < len; i++){
+            final char c = value.charAt(i);
+            if(c >= 0x20 && c != '"' && c != '\\') continue;
+            if(i > start) Codec.writeUtf8(value.subSequence(start, i), out);
+            out.put((byte) '\\');
+            switch (c){
+                case '"': out.put((byte) '"'); break;
+                case '\\': out.put((byte) '\\'); break;
+                case '\n': out.put((byte) 'n'); break;
+                case '\r': out.put((byte) 'r'); break;
+                case '\t': out.put((byte) 't'); break;
+                case '\b': out.put((byte) 'b'); break;
+                case '\f': out.put((byte) 'f'); break;
+                default: {
+                    out.put((byte) 'u');
+                    out.put((byte) '0');
+                    out.put((byte) '0');
+                    out.put(DIGITS_LOWER[(c >> 4) & 0x0F]);
+                    out.put(DIGITS_LOWER[c & 0x0F]);
+                    break;
+                }
+            }
+            start = i + 1;
+        }
+        if(start == 0){
+            Codec.writeUtf8(value, out);
+        }else if(start < len){
+            Codec.writeUtf8(value.subSequence(start, len), out);
+        }
+        out.put((byte) '"');
+    }
+}
@@ -28,6 +28,14 @@ public class SubscribeRequestModel extends RequestModel {
         return params;
     }
 
+    @Override
+    protected boolean writeParameters(final SignJsonWriter writer) {
+        writer.field(PARAMS_ACCOUNT, getAccount())
+                .field(PARAMS_DEVICE_ACCOUNT, getDeviceAccount())
+                .field(PARAMS_DEVICE_ID, getDeviceId());
+        return true;
+    }
+
     /**
      * 获取设备用户名(tag)。
      * @return 设备用户名(tag)。
@@ -0,0 +1,221 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.utils.LogWrapper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 自适应心跳间隔(探测运营商NAT允许的最长空闲时间)。
+ * <p>
+ * 以服务器下发的心跳间隔为起点,连续多次收到心跳应答后将间隔增加一个步长,直至上限;
+ * 心跳应答超时时退回上一个成功的间隔,并将失败的间隔记为该网络的探测上限(一段时间后重新探测)。
+ * 学习到的间隔按网络(WiFi SSID或运营商)记录并持久化,切换网络时恢复。
+ * </p>
+ */
+final class AdaptiveHeartbeat {
+    private static final LogWrapper logger = LogWrapper.getLog(AdaptiveHeartbeat.class);
+
+    /**
+     * 默认心跳间隔上限(秒)。
+     */
+    static final int DEF_MAX_SECONDS = 600;
+    /**
+     * 持久化文件名。
+     */
+    static final String FILE_NAME = "push-heartbeat.properties";
+
+    //探测步长(秒)
+    private static final int STEP_SECONDS = 30;
+    //增加间隔所需的连续心跳应答数
+    private static final int SUCCESS_THRESHOLD = 3;
+    //探测上限有效期(毫秒)
+    private static final long CEILING_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+    //记录的网络数上限
+    private static final int MAX_NETWORKS = 32;
+
+    private final File file;
+    private final int maxSeconds;
+    private final Map<String, NetworkState> states = new LinkedHashMap<String, NetworkState>(16, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, NetworkState> eldest) {
+            return size() > MAX_NETWORKS;
+        }
+    };
+
+    private String network;
+    private NetworkState state;
+    private int baseSeconds = 0, successes = 0;
+    private long wakeups = 0, pings = 0, missed = 0;
+    private double baseline = 0;
+
+    /**
+     * 构造函数(加载已学习的心跳间隔)。
+     * @param file
+     * 持久化文件(null表示不持久化)。
+     * @param maxSeconds
+     * 心跳间隔上限(秒)。
+     */
+    AdaptiveHeartbeat(final File file, final int maxSeconds){
+        if(maxSeconds <= 0) throw new IllegalArgumentException("maxSeconds");
+        this.file = file;
+        this.maxSeconds = maxSeconds;
+        load();
+    }
+
+    /**
+     * 选择网络,获取心跳间隔(连接成功或服务器心跳间隔变化时调用)。
+     * @param network
+     * 网络标识。
+     * @param baseSeconds
+     * 服务器下发的心跳间隔(秒)。
+     * @return 心跳间隔(秒)。
+     */
+    synchronized int select(final String network, final int baseSeconds){
+        if(network == null) throw new IllegalArgumentException("network");
+        if(baseSeconds <= 0) throw new IllegalArgumentException("baseSeconds");
+        this.network = network;
+        this.baseSeconds = baseSeconds;
+        this.successes = 0;
+        NetworkState s = states.get(network);
+        if(s == null){
+            s = new NetworkState(baseSeconds, 0, 0);
+            states.put(network, s);
+        }
+        if(s.ceiling > 0 && System.currentTimeMillis() - s.ceilingTime > CEILING_TTL_MILLIS){//重新探测
+            s.ceiling = 0;
+        }
+        s.interval = clamp(s.interval);
+        this.state = s;
+        logger.info("heartbeat[" + network + "] interval=>" + s.interval + "s(base:" + baseSeconds + "s)");
+        return s.interval;
+    }
+
+    /**
+     * 获取当前心跳间隔。
+     * @return 心跳间隔(秒,未选择网络时返回0)。
+     */
+    synchronized int interval(){
+        return state == null ? 0 : state.interval;
+    }
+
+    /**
+     * 心跳定时唤醒。
+     */
+    synchronized void wakeup(){
+        if(state == null) return;
+        wakeups++;
+        baseline += (double) state.interval / baseSeconds;
+    }
+
+    /**
+     * 收到心跳应答。
+     * @return 心跳间隔是否增加。
+     */
+    synchronized boolean succeeded(){
+        if(state == null) return false;
+        pings++;
+        if(++successes < SUCCESS_THRESHOLD) return false;
+        successes = 0;
+        final int next = Math.min(state.interval + STEP_SECONDS, maxSeconds);
+        if(next <= state.interval || (state.ceiling > 0 && next >= state.ceiling)) return false;
+        state.interval = next;
+        logger.info("heartbeat[" + network + "] step up=>" + next + "s");
+        save();
+        return true;
+    }
+
+    /**
+     * 心跳应答超时(连接失效)。
+     * @return 心跳间隔是否减小。
+     */
+    synchronized boolean missed(){
+        if(state == null) return false;
+        missed++;
+        successes = 0;
+        if(state.interval <= baseSeconds) return false;
+        state.ceiling = state.interval;
+        state.ceilingTime = System.currentTimeMillis();
+        state.interval = Math.max(baseSeconds, state.interval - STEP_SECONDS);
+        logger.warn("heartbeat[" + network + "] missed at " + state.ceiling + "s, back off=>" + state.interval + "s");
+        save();
+        return true;
+    }
+
+    /**
+     * 获取心跳指标快照。
+     * @return 心跳指标。
+     */
+    synchronized HeartbeatMetrics metrics(){
+        return new HeartbeatMetrics(network, baseSeconds, state == null ? 0 : state.interval, state == null ? 0 : state.ceiling,
+                wakeups, pings, missed, Math.max(0L, (long) baseline - wakeups));
+    }
+
+    private int clamp(final int interval){
+        return Math.max(baseSeconds, Math.min(interval, Math.max(baseSeconds, maxSeconds)));
+    }
+
+    //加载已学习的心跳间隔
+    private void load(){
+        if(file == null || !file.exists()) return;
+        final Properties props = new Properties();
+        try {
+            final InputStream in = new FileInputStream(file);
+            try {
+                props.load(in);
+            }finally {
+                in.close();
+            }
+        }catch (IOException e){
+            logger.warn("加载心跳间隔失败:" + e.getMessage());
+            return;
+        }
+        for(String key : props.stringPropertyNames()){
+            final String[] values = props.getProperty(key).split(",");
+            try {
+                if(values.length != 3) throw new NumberFormatException(props.getProperty(key));
+                states.put(key, new NetworkState(Integer.parseInt(values[0]), Integer.parseInt(values[1]), Long.parseLong(values[2])));
+            }catch (NumberFormatException e){
+                logger.warn("心跳间隔记录格式错误[" + key + "]:" + e.getMessage());
+            }
+        }
+    }
+
+    //保存已学习的心跳间隔
+    private void save(){
+        if(file == null) return;
+        final Properties props = new Properties();
+        for(Map.Entry<String, NetworkState> entry : states.entrySet()){
+            final NetworkState s = entry.getValue();
+            props.setProperty(entry.getKey(), s.interval + "," + s.ceiling + "," + s.ceilingTime);
+        }
+        try {
+            final FileOutputStream out = new FileOutputStream(file);
+            try {
+                props.store(out, null);
+            }finally {
+                out.close();
+            }
+        }catch (IOException e){
+            logger.error("保存心跳间隔失败:" + e.getMessage(), e);
+        }
+    }
+
+    //网络心跳状态
+    private static final class NetworkState {
+        int interval, ceiling;
+        long ceilingTime;
+
+        NetworkState(final int interval, final int ceiling, final long ceilingTime){
+            this.interval = interval;
+            this.ceiling = ceiling;
+            this.ceilingTime = ceilingTime;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.linkus.push.sdk.socket;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 紧凑二进制消息体编解码。
+ * <p>
+ * 消息体为字段序列,每个字段以varint标签开头:标签 = (字段ID &lt;&lt; 2) | 值类型。
+ * 值类型:0-varint整数(zigzag);1-长度前缀UTF-8字符串;2-长度前缀嵌套对象。
+ * 字段ID取自协议字段字典,字典外字段使用ID 0并在标签后以长度前缀UTF-8写入字段名。
+ * 同一字段重复出现表示字符串数组。
+ * </p>
+ */
+public final class BinaryCodec {
+    private static final int TYPE_VARINT = 0, TYPE_STRING = 1, TYPE_OBJECT = 2;
+
+    /**
+     * 协议字段字典(下标为字段ID,追加新字段只能添加在末尾)。
+     */
+    private static final String[] FIELDS = {
+            null,
+            "account", "deviceId", "deviceName", "deviceType", "deviceAccount",
+            "pushId", "sign", "result", "msg", "heartRate",
+            "afterConnect", "contentId", "content", "aps", "badge",
+            "sound", "content-available", "alert", "body", "action-loc-key",
+            "loc-key", "launch-image", "loc-args", "formats", "format"
+    };
+    private static final Map<String, Integer> FIELD_IDS = new HashMap<>();
+
+    static {
+        for(int i = 1; i < FIELDS.length; i++){
+            FIELD_IDS.put(FIELDS[i], i);
+        }
+    }
+
+    /**
+     * 获取字段ID。
+     * @param key
+     * 字段名。
+     * @return 字段ID,字典外字段返回0。
+     */
+    public static int fieldId(final String key){
+        final Integer id = FIELD_IDS.get(key);
+        return id == null ? 0 : id;
+    }
+
+    /**
+     * 写入字符串字段。
+     * @param key
+     * 字段名。
+     * @param value
+     * 字段值。
+     * @param out
+     * 输出缓冲区(空间不足时抛出BufferOverflowException)。
+     */
+    public static void writeString(final String key, final CharSequence value, final ByteBuffer out){
+        writeTag(key, TYPE_STRING, out);
+        writeLengthPrefixed(value, out);
+    }
+
+    /**
+     * 写入字符串字段(值为ASCII字节)。
+     * @param key
+     * 字段名。
+     * @param value
+     * 字段值字节。
+     * @param out
+     * 输出缓冲区。
+     */
+    public static void writeAscii(final String key, final byte[] value, final ByteBuffer out){
+        writeTag(key, TYPE_STRING, out);
+        writeVarint(value.length, out);
+        out.put(value);
+    }
+
+    /**
+     * 写入整数字段。
+     * @param key
+     * 字段名。
+     * @param value
+     * 字段值。
+     * @param out
+     * 输出缓冲区。
+     */
+    public static void writeLong(final String key, final long value, final ByteBuffer out){
+        writeTag(key, TYPE_VARINT, out);
+        writeVarint((value << 1) ^ (value >> 63), out);
+    }
+
+    /**
+     * 写入对象(支持字符串、整数、嵌套Map及字符串集合)。
+     * @param obj
+     * 对象。
+     * @param out
+     * 输出缓冲区。
+     */
+    public static void writeObject(final Map<String, ?> obj, final ByteBuffer out){
+        for(Map.Entry<String, ?> entry : obj.entrySet()){
+            final String key = entry.getKey();
+            final Object value = entry.getValue();
+            if(key == null || value == null) continue;
+            if(value instanceof Number){
+                writeLong(key, ((Number) value).longValue(), out);
+            }else if(value instanceof Boolean){
+                writeLong(key, ((Boolean) value) ? 1 : 0, out);
+            }else if(value instanceof Map){
+                writeTag(key, TYPE_OBJECT, out);
+                //预留4字节长度,写入后回填
+                final int start = reserve(4, out);
+                @SuppressWarnings("unchecked")
+                final Map<String, ?> map = (Map<String, ?>) value;
+                writeObject(map, out);
+                final int end = out.position();
+                out.position(start);
+                writeFixedVarint(end - start - 4, out);
+                out.position(end);
+            }else if(value instanceof Collection){
+                for(Object item : (Collection<?>) value){
+                    if(item == null) continue;
+                    writeString(key, item.toString(), out);
+                }
+            }else{
+                writeString(key, value.toString(), out);
+            }
+        }
+    }
+
+    /**
+     * 读取对象。
+     * @param data
+     * 数据。
+     * @param offset
+     * 起始位置。
+     * @param length
+     * 数据长度。
+     * @return 对象。
+     */
+    public static JSONObject readObject(final byte[] data, final int offset, final int length){
+        final JSONObject obj = new JSONObject();
+        final int end = offset + length;
+        final int[] pos = {offset};
+        while (pos[0] < end){
+            final long tag = readVarint(data, pos, end);
+            final int type = (int) (tag & 0x03), id = (int) (tag >>> 2);
+            final String key;
+            if(id == 0){
+                final int len = (int) readVarint(data, pos, end);
+                checkLength(pos[0], len, end);
+                key = new String(data, pos[0], len, Codec.UTF8);
+                pos[0] += len;
+            }else{
+                key = id < FIELDS.length ? FIELDS[id] : ("#" + id);
+            }
+            final Object value;
+            switch (type){
+                case TYPE_VARINT: {
+                    final long raw = readVarint(data, pos, end);
+                    final long val = (raw >>> 1) ^ -(raw & 1);
+                    value = (val >= Integer.MIN_VALUE && val <= Integer.MAX_VALUE) ? (Object) (int) val : (Object) val;
+                    break;
+                }
+                case TYPE_STRING: {
+                    final int len = (int) readVarint(data, pos, end);
+                    checkLength(pos[0], len, end);
+                    value = new String(data, pos[0], len, Codec.UTF8);
+                    pos[0] += len;
+                    break;
+                }
+                case TYPE_OBJECT: {
+                    final int len = (int) readVarint(data, pos, end);
+                    checkLength(pos[0], len, end);
+                    value = readObject(data, pos[0], len);
+                    pos[0] += len;
+                    break;
+                }
+                default:
+                    throw new RuntimeException("二进制消息体值类型[" + type + "]不符合通讯协议!");
+            }
+            //重复字段转为数组
+            final Object exists = obj.get(key);
+            if(exists == null){
+                obj.put(key, value);
+            }else if(exists instanceof JSONArray){
+                ((JSONArray) exists).add(value);
+            }else{
+                final JSONArray array = new JSONArray();
+                array.add(exists);
+                array.add(value);
+                obj.put(key, array);
+            }
+        }
+        return obj;
+    }
+
+    //写入标签
+    private static void writeTag(final String key, final int type, final ByteBuffer out){
+        final int id = fieldId(key);
+        writeVarint(((long) id << 2) | type, out);
+        if(id == 0){
+            writeLengthPrefixed(key, out);
+        }
+    }
+
+    //写入长度前缀UTF-8字符串(预留长度后回填)
+    private static void writeLengthPrefixed(final CharSequence value, final ByteBuffer out){
+        final int len = value.length();
+        if(len < 43){//UTF-8最长3字节/字符,长度必然小于128,单字节长度
+            final int start = reserve(1, out);
+            Codec.writeUtf8(value, out);
+            out.put(start, (byte) (out.position() - start - 1));
+            return;
+        }
+        final int start = reserve(4, out);
+        Codec.writeUtf8(value, out);
+        final int end = out.position();
+        out.position(start);
+        writeFixedVarint(end - start - 4, out);
+        out.position(end);
+    }
+
+    //预留长度字节,返回预留起始位置(空间不足时抛出BufferOverflowException,由编码器换用更大的缓冲区)
+    private static int reserve(final int size, final ByteBuffer out){
+        if(out.remaining() < size) throw new BufferOverflowException();
+        final int start = out.position();
+        out.position(start + size);
+        return start;
+    }
+
+    /**
+     * 写入varint。
+     * @param value
+     * 数值(按无符号处理)。
+     * @param out
+     * 输出缓冲区。
+     */
+    public static void writeVarint(long value, final ByteBuffer out){
+        while ((value & ~0x7FL) != 0){
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    //写入固定4字节varint(用于回填长度)
+    private static void writeFixedVarint(final int value, final ByteBuffer out){
+        if(value > 0x0FFFFFFF) throw new RuntimeException("二进制字段长度超过上限!=>" + value);
+        out.put((byte) ((value & 0x7F) | 0x80));
+        out.put((byte) (((value >>> 7) & 0x7F) | 0x80));
+        out.put((byte) (((value >>> 14) & 0x7F) | 0x80));
+        out.put((byte) ((value >>> 21) & 0x7F));
+    }
+
+    //读取varint
+    private static long readVarint(final byte[] data, final int[] pos, final int end){
+        long value = 0;
+        int shift = 0;
+        while (pos[0] < end && shift < 64){
+            final byte b = data[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0) return value;
+            shift += 7;
+        }
+        throw new RuntimeException("二进制消息体varint不完整!");
+    }
+
+    //检查长度
+    private static void checkLength(final int pos, final int len, final int end){
+        if(len < 0 || pos + len > end){
+            throw new RuntimeException("二进制消息体字段长度越界!");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.linkus.push.sdk.socket;
+
+/**
+ * 消息体格式枚举。
+ */
+public enum BodyFormat {
+    /**
+     * 签名JSON(默认)。
+     */
+    Json(0),
+    /**
+     * 紧凑二进制(标签字段+varint整数+长度前缀UTF-8)。
+     */
+    Binary(1);
+
+    private final int val;
+    /**
+     * 构造函数。
+     * @param val
+     * 枚举值。
+     */
+    BodyFormat(final int val){
+        this.val = val;
+    }
+
+    /**
+     * 获取枚举值。
+     * @return 枚举值。
+     */
+    public int getVal() {
+        return val;
+    }
+
+    /**
+     * 枚举转换。
+     * @param val
+     * 枚举值。
+     * @return
+     * 枚举对象。
+     */
+    public static BodyFormat parse(final int val){
+        return (val >= 0 && val < LOOKUP.length) ? LOOKUP[val] : null;
+    }
+
+    //枚举值下标查找表
+    private static final BodyFormat[] LOOKUP;
+
+    static {
+        final BodyFormat[] formats = values();
+        LOOKUP = new BodyFormat[formats.length];
+        for(BodyFormat format : formats){
+            LOOKUP[format.val] = format;
+        }
+    }
+}
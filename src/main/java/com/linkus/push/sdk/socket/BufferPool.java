@@ -0,0 +1,242 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.utils.LogWrapper;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分级缓冲池(socket编解码、收发及HTTP读写共享)。
+ * <p>
+ * 按容量分级复用缓冲区,空闲缓冲区总字节数受上限约束;超过最大分级的请求直接分配且不回收。
+ * 调试模式下可开启泄漏检测,缓冲区未release即被回收时输出其获取位置。
+ * </p>
+ */
+public final class BufferPool {
+    private static final LogWrapper logger = LogWrapper.getLog(BufferPool.class);
+
+    /**
+     * 缓冲区容量分级。
+     */
+    private static final int[] SIZE_CLASSES = {512, 1024, 2048, 4096, 8192, 16384, 32768, 65536};
+    /**
+     * 默认空闲缓冲区总字节上限。
+     */
+    private static final long DEF_MAX_POOLED_BYTES = 512 * 1024;
+    /**
+     * 每个分级最多缓存的空闲缓冲区数量。
+     */
+    private static final int MAX_PER_CLASS = 64;
+
+    private static final BufferPool shared = new BufferPool(DEF_MAX_POOLED_BYTES);
+
+    private final long maxPooledBytes;
+    private final SizeClass[] classes;
+
+    private final AtomicLong hits = new AtomicLong(0L), misses = new AtomicLong(0L);
+    private final AtomicLong outstanding = new AtomicLong(0L), highWater = new AtomicLong(0L);
+    private final AtomicLong pooledBytes = new AtomicLong(0L);
+
+    //泄漏检测
+    private final AtomicBoolean leakDetection = new AtomicBoolean(false);
+    private final ReferenceQueue<PooledBuffer> leakQueue = new ReferenceQueue<>();
+    private final Map<LeakRef, Boolean> leakRefs = new ConcurrentHashMap<>();
+    private final AtomicLong leaks = new AtomicLong(0L);
+
+    /**
+     * 构造函数。
+     * @param maxPooledBytes
+     * 空闲缓冲区总字节上限。
+     */
+    BufferPool(final long maxPooledBytes){
+        this.maxPooledBytes = maxPooledBytes;
+        this.classes = new SizeClass[SIZE_CLASSES.length];
+        for(int i = 0; i < SIZE_CLASSES.length; i++){
+            classes[i] = new SizeClass(SIZE_CLASSES[i], (int) Math.max(1, Math.min(MAX_PER_CLASS, maxPooledBytes / SIZE_CLASSES[i])));
+        }
+    }
+
+    /**
+     * 获取共享缓冲池。
+     * @return 共享缓冲池。
+     */
+    public static BufferPool shared(){
+        return shared;
+    }
+
+    /**
+     * 获取缓冲区(引用计数为1)。
+     * @param capacity
+     * 最小容量。
+     * @return 已清空的缓冲区,容量可能大于请求容量。
+     */
+    public PooledBuffer acquire(final int capacity){
+        if(leakDetection.get()) pollLeaks();
+        final SizeClass sc = sizeClass(capacity);
+        PooledBuffer buf = null;
+        if(sc != null && (buf = sc.pop()) != null){
+            pooledBytes.addAndGet(-sc.size);
+            hits.incrementAndGet();
+        }else{
+            misses.incrementAndGet();
+            buf = new PooledBuffer(this, ByteBuffer.allocate(sc == null ? capacity : sc.size));
+        }
+        buf.buffer().clear();
+        buf.acquired();
+        //计数
+        final long count = outstanding.incrementAndGet();
+        long max;
+        while (count > (max = highWater.get()) && !highWater.compareAndSet(max, count)){
+            //重试
+        }
+        if(leakDetection.get()){
+            final LeakRef ref = new LeakRef(buf, leakQueue);
+            buf.leakRef = ref;
+            leakRefs.put(ref, Boolean.TRUE);
+        }
+        return buf;
+    }
+
+    //归还缓冲区(引用计数归零时调用)
+    void recycle(final PooledBuffer buf){
+        outstanding.decrementAndGet();
+        final LeakRef ref = buf.leakRef;
+        if(ref != null){
+            buf.leakRef = null;
+            leakRefs.remove(ref);
+            ref.clear();
+        }
+        final SizeClass sc = sizeClass(buf.buffer().capacity());
+        if(sc == null || sc.size != buf.buffer().capacity()) return;
+        //空闲总量上限
+        if(pooledBytes.addAndGet(sc.size) > maxPooledBytes || !sc.push(buf)){
+            pooledBytes.addAndGet(-sc.size);
+        }
+    }
+
+    //获取容量所属分级
+    private SizeClass sizeClass(final int capacity){
+        for(SizeClass sc : classes){
+            if(capacity <= sc.size) return sc;
+        }
+        return null;
+    }
+
+    //检查已被回收但未release的缓冲区
+    private void pollLeaks(){
+        LeakRef ref;
+        while ((ref = (LeakRef) leakQueue.poll()) != null){
+            if(leakRefs.remove(ref) == null) continue;
+            leaks.incrementAndGet();
+            outstanding.decrementAndGet();
+            logger.error("缓冲区未release即被回收(泄漏),获取位置:", ref.site);
+        }
+    }
+
+    /**
+     * 设置是否开启泄漏检测(调试使用,开启后每次获取记录调用栈)。
+     * @param enabled
+     * 是否开启。
+     */
+    public void setLeakDetection(final boolean enabled) {
+        leakDetection.set(enabled);
+    }
+
+    /**
+     * 获取命中(复用)次数。
+     * @return 命中次数。
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * 获取未命中(新分配)次数。
+     * @return 未命中次数。
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * 获取已获取未归还的缓冲区数量。
+     * @return 未归还数量。
+     */
+    public long getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * 获取未归还缓冲区数量的峰值。
+     * @return 峰值。
+     */
+    public long getHighWater() {
+        return highWater.get();
+    }
+
+    /**
+     * 获取空闲缓冲区总字节数。
+     * @return 空闲缓冲区总字节数。
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * 获取检测到的泄漏数量。
+     * @return 泄漏数量。
+     */
+    public long getLeaks() {
+        return leaks.get();
+    }
+
+    @Override
+    public String toString() {
+        return "{hits=" + getHits() + ",misses=" + getMisses() + ",outstanding=" + getOutstanding()
+                + ",highWater=" + getHighWater() + ",pooledBytes=" + getPooledBytes() + ",leaks=" + getLeaks() + "}";
+    }
+
+    /**
+     * 容量分级(空闲缓冲区栈)。
+     */
+    private static final class SizeClass {
+        private final int size;
+        private final PooledBuffer[] stack;
+        private int count = 0;
+
+        SizeClass(final int size, final int max){
+            this.size = size;
+            this.stack = new PooledBuffer[max];
+        }
+
+        synchronized PooledBuffer pop(){
+            if(count == 0) return null;
+            final PooledBuffer buf = stack[--count];
+            stack[count] = null;
+            return buf;
+        }
+
+        synchronized boolean push(final PooledBuffer buf){
+            if(count == stack.length) return false;
+            stack[count++] = buf;
+            return true;
+        }
+    }
+
+    /**
+     * 泄漏检测引用(记录获取位置)。
+     */
+    static final class LeakRef extends WeakReference<PooledBuffer> {
+        private final Throwable site;
+
+        LeakRef(final PooledBuffer buf, final ReferenceQueue<PooledBuffer> queue){
+            super(buf, queue);
+            this.site = new Throwable("PooledBuffer acquire");
+        }
+    }
+}
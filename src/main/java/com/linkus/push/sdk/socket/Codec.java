@@ -1,7 +1,9 @@
 package com.linkus.push.sdk.socket;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import com.linkus.push.sdk.models.BaseModel;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 /**
@@ -14,46 +16,172 @@ public abstract class Codec {
      */
     public static final Charset UTF8 = Charset.forName("UTF-8");
 
+    /**
+     * 消息头最大长度(1字节类型+4字节消息体长度)。
+     */
+    static final int HEADER_MAX_LEN = 5;
+    /**
+     * 请求数据模型编码初始缓冲区大小。
+     */
+    private static final int MODEL_INIT_SIZE = 512;
+    /**
+     * 请求数据模型编码缓冲区大小提示上限。
+     */
+    private static final int MODEL_MAX_HINT = 8192;
+
+    //请求数据模型编码缓冲区大小提示(空间不足时增长,避免每次编码都重试)
+    private volatile int modelCapacity = MODEL_INIT_SIZE;
+
     /**
      * 消息编码。
+     * <p>
+     * 预留消息头空间,消息体直接以UTF-8写入池化缓冲区,再回填消息头。
+     * </p>
      * @param header
      * 消息头。
      * @param payload
      * 消息体。
      * @return
-     * 编码后的字节数组。
+     * 编码后的消息帧(position~limit),使用完毕须release。
      */
-     byte[] encode(final FixedHeader header, final String payload){
+    PooledBuffer encode(final FixedHeader header, final String payload){
         if(header == null) return null;
-        byte[] data = null;
-        if(payload != null && payload.length() > 0){
-            data = payload.getBytes(UTF8);
+        final int len = payload == null ? 0 : payload.length();
+        final PooledBuffer frame = BufferPool.shared().acquire(HEADER_MAX_LEN + len * 3);
+        final ByteBuffer buf = frame.buffer();
+        //写入消息体
+        buf.position(HEADER_MAX_LEN);
+        if(len > 0){
+            writeUtf8(payload, buf);
         }
-        header.setRemainingLength(data == null ? 0 : data.length);
+        return completeFrame(header, frame);
+    }
+
+    /**
+     * 请求数据模型编码(按消息头的消息体格式直接写入池化缓冲区)。
+     * @param header
+     * 消息头。
+     * @param model
+     * 请求数据模型。
+     * @return
+     * 编码后的消息帧(position~limit),使用完毕须release。
+     */
+    PooledBuffer encode(final FixedHeader header, final BaseModel model){
+        return encode(header, model, -1);
+    }
+
+    /**
+     * 请求数据模型编码(消息体达到压缩阈值时以预置字典压缩)。
+     * @param header
+     * 消息头。
+     * @param model
+     * 请求数据模型。
+     * @param compressThreshold
+     * 压缩阈值(字节),小于0时不压缩。
+     * @return
+     * 编码后的消息帧(position~limit),使用完毕须release。
+     */
+    PooledBuffer encode(final FixedHeader header, final BaseModel model, final int compressThreshold){
+        if(header == null || model == null) return null;
+        int capacity = modelCapacity;
+        while (true){
+            final PooledBuffer frame = BufferPool.shared().acquire(capacity);
+            final ByteBuffer buf = frame.buffer();
+            buf.position(HEADER_MAX_LEN);
+            try {
+                if(header.getFormat() == BodyFormat.Binary){
+                    model.writeSignBinary(buf);
+                }else {
+                    model.writeSignJson(buf);
+                }
+            }catch (BufferOverflowException e){//空间不足,换用更大的缓冲区
+                capacity = buf.capacity() << 1;
+                frame.release();
+                if(capacity > modelCapacity){
+                    modelCapacity = Math.min(capacity, MODEL_MAX_HINT);
+                }
+                continue;
+            }catch (RuntimeException e){
+                frame.release();
+                throw e;
+            }
+            final int len = buf.position() - HEADER_MAX_LEN;
+            if(compressThreshold >= 0 && len >= compressThreshold){
+                final PooledBuffer packed;
+                try {
+                    packed = FrameCompressor.deflate(buf.array(), buf.arrayOffset() + HEADER_MAX_LEN, len, HEADER_MAX_LEN);
+                }catch (RuntimeException e){
+                    frame.release();
+                    throw e;
+                }
+                if(packed != null){
+                    frame.release();
+                    return completeFrame(header, packed);
+                }
+                //压缩无收益,发送原始消息体
+            }
+            return completeFrame(header, frame);
+        }
+    }
+
+    //回填消息头(消息体位于 HEADER_MAX_LEN~position)
+    private PooledBuffer completeFrame(final FixedHeader header, final PooledBuffer frame){
+        final ByteBuffer buf = frame.buffer();
+        final int end = buf.position();
+        header.setRemainingLength(end - HEADER_MAX_LEN);
         final int size = this.calcHeaderSize(header.getRemainingLength());
         if(size < 0){
+            frame.release();
             throw new RuntimeException("消息长度超过了预定的长度!=>" + header.getRemainingLength());
         }
-        //输出数据流
-        final ByteArrayOutputStream buf = new ByteArrayOutputStream(size + 1);
-        //写入消息头
+        final int start = HEADER_MAX_LEN - 1 - size;
+        buf.position(start);
         this.writeHeader(buf, header);
-        //写入消息体
-        if(data != null && data.length > 0){
-            buf.write(data, 0, data.length);
+        buf.position(start);
+        buf.limit(end);
+        return frame;
+    }
+
+    /**
+     * 字符串以UTF-8编码写入缓冲区。
+     * @param source
+     * 字符串。
+     * @param out
+     * 写入的缓冲区(空间不足时抛出BufferOverflowException)。
+     */
+    public static void writeUtf8(final CharSequence source, final ByteBuffer out){
+        final int len = source.length();
+        for(int i = 0; i < len; i++){
+            final char c = source.charAt(i);
+            if(c < 0x80){
+                out.put((byte) c);
+            }else if(c < 0x800){
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }else if(Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(source.charAt(i + 1))){
+                final int cp = Character.toCodePoint(c, source.charAt(++i));
+                out.put((byte) (0xF0 | (cp >> 18)));
+                out.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (cp & 0x3F)));
+            }else if(c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE){//不成对的代理字符
+                out.put((byte) '?');
+            }else{
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
         }
-        //返回
-        return buf.toByteArray();
     }
 
     /**
      * 写入消息头数据。
      * @param out
-     * 写入的输出数据流。
+     * 写入的缓冲区。
      * @param header
      * 消息头。
      */
-    private void writeHeader(final ByteArrayOutputStream out, final FixedHeader header){
+    private void writeHeader(final ByteBuffer out, final FixedHeader header){
         //第一个字节
         byte ret = 0;
         //消息类型(高四位)
@@ -62,15 +190,15 @@ public abstract class Codec {
         if(header.getDup()) ret |= 0x08;
         //qos
         ret |= header.getQos().getVal() << 1;
-        //retain
-        if(header.getRetain()) ret |= 0x01;
+        //retain(消息体格式)
+        if(header.getFormat() == BodyFormat.Binary) ret |= 0x01;
         ret &= 0xFF;
         //写入第一个字节
-        out.write(ret);
+        out.put(ret);
         //消息体长度
         int num = header.getRemainingLength();
         if(num == 0){
-            out.write(0);
+            out.put((byte) 0);
             return;
         }
         do{
@@ -80,7 +208,7 @@ public abstract class Codec {
                 digit |= 0x80;
             }
             digit &= 0xff;
-            out.write(digit);
+            out.put((byte) digit);
         }while (num > 0);
     }
 
@@ -103,39 +231,4 @@ public abstract class Codec {
         return size;
     }
 
-    /**
-     * 消息头解码。
-     * @param stream
-     * 消息数据流。
-     * @return
-     * 消息头。
-     */
-     FixedHeader decodeHeader(final ByteArrayInputStream stream){
-        //读取第一个字节
-        final short b1 = (short) stream.read();
-        if(b1 <= 0) throw new RuntimeException("读取消息头数据不符合通讯协议!");
-        //消息类型
-        final MessageType type = MessageType.parse(b1 >>> 4);
-        if(type == null) throw new RuntimeException("读取消息头数据消息类型不符合通讯协议!");
-        //qos
-        final Qos qos = Qos.parse((b1 & 0x06) >>> 1);
-        if(qos == null) throw new RuntimeException("读取消息头数据qos不符合通讯协议!");
-        //读取消息体长度
-        int remainingLength = 0, multiplier = 1, loops = 0;
-        short digit;
-        do{
-            digit = (short) stream.read();
-            //转换为十进制
-            remainingLength += (digit & 0x7f) * multiplier;
-            multiplier *= 128;
-            //计数
-            loops++;
-        }while (((digit & 0x80) != 0) && loops < 4);
-        if(loops >= 4 && (digit & 0x80) != 0){
-            throw new RuntimeException("消息长度大于4个字节，不符合通讯协议!");
-        }
-        //构造消息头
-        return new FixedHeader(type, (qos == Qos.Ack), remainingLength);
-    }
-
 }
\ No newline at end of file
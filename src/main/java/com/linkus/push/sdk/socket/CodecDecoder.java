@@ -5,9 +5,7 @@ import com.linkus.push.sdk.models.PingResponseModel;
 import com.linkus.push.sdk.models.PublishModel;
 import com.linkus.push.sdk.utils.LogWrapper;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 /**
  * socket消息解码器
@@ -15,21 +13,111 @@ import java.util.Arrays;
  */
 public final class CodecDecoder extends Codec {
     private static final LogWrapper logger = LogWrapper.getLog(CodecDecoder.class);
-    private static final int HEAD_DATA_MIN_LEN = 5;
 
-    private volatile FixedHeader header = null;
-    private final ByteArrayOutputStream buffer;
+    //消息头增量解码器
+    private final FixedHeaderDecoder headerDecoder = new FixedHeaderDecoder();
+    //当前消息头(null表示正在解析消息头)
+    private FixedHeader header = null;
+    //跨读取的消息体池化缓冲区(写模式,position为已接收的消息体长度;无跨读取消息体时为null)
+    private PooledBuffer body = null;
 
-    private final CodecDecoderListener listener;
+    /**
+     * 默认消息体内存上限(字节)。
+     */
+    public static final int DEF_MAX_IN_MEMORY_SIZE = 256 * 1024;
+
+    //消息体内存上限,超过时分块交付超大消息体监听器
+    private volatile int maxInMemorySize = DEF_MAX_IN_MEMORY_SIZE;
+    //超大消息体监听器(未设置时丢弃超大消息体)
+    private volatile LargeBodyListener largeBodyListener;
+    //当前超大消息体的监听器及已交付长度(streaming为false表示无超大消息体)
+    private LargeBodyListener streamListener;
+    private boolean streaming = false;
+    private int streamed = 0;
+    //未知消息类型的消息体剩余跳过长度
+    private int skipping = 0;
+
+    //空消息体
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    //接收消息队列(未设置时在解码线程内直接分发)
+    private volatile InboundQueue inboundQueue;
+
+    private final MessageHandlerRegistry registry;
 
     /**
      * 构造函数。
      *
+     * @param registry 消息处理器注册表。
+     */
+    public CodecDecoder(final MessageHandlerRegistry registry) {
+        if (registry == null) throw new IllegalArgumentException("registry");
+        this.registry = registry;
+    }
+
+    /**
+     * 构造函数(协议内置消息解析后统一交由监听器处理)。
+     *
      * @param listener 消息解码监听器。
      */
     public CodecDecoder(final CodecDecoderListener listener) {
-        this.listener = listener;
-        this.buffer = new ByteArrayOutputStream();
+        this(createRegistry(listener));
+    }
+
+    //创建转发到监听器的注册表
+    private static MessageHandlerRegistry createRegistry(final CodecDecoderListener listener) {
+        if (listener == null) throw new IllegalArgumentException("listener");
+        final MessageHandler<AckModel> ack = new MessageHandlers.AckHandler() {
+            @Override
+            public void handle(MessageType type, AckModel model) {
+                listener.decode(type, model);
+            }
+        };
+        return new MessageHandlerRegistry()
+                .register(MessageType.Connack, ack)
+                .register(MessageType.Pubrel, ack)
+                .register(MessageType.Suback, ack)
+                .register(MessageType.Unsuback, ack)
+                .register(MessageType.Publish, new MessageHandlers.PublishHandler() {
+                    @Override
+                    public void handle(MessageType type, PublishModel model) {
+                        listener.decode(type, model);
+                    }
+                })
+                .register(MessageType.Pingresp, new MessageHandlers.PingResponseHandler() {
+                    @Override
+                    public void handle(MessageType type, PingResponseModel model) {
+                        listener.decode(type, model);
+                    }
+                });
+    }
+
+    /**
+     * 设置消息体内存上限(超过时不缓存消息体,分块交付超大消息体监听器)。
+     *
+     * @param maxInMemorySize 消息体内存上限(字节)。
+     */
+    public void setMaxInMemorySize(final int maxInMemorySize) {
+        if (maxInMemorySize <= 0) throw new IllegalArgumentException("maxInMemorySize");
+        this.maxInMemorySize = maxInMemorySize;
+    }
+
+    /**
+     * 设置超大消息体监听器。
+     *
+     * @param largeBodyListener 超大消息体监听器(null表示丢弃超大消息体)。
+     */
+    public void setLargeBodyListener(final LargeBodyListener largeBodyListener) {
+        this.largeBodyListener = largeBodyListener;
+    }
+
+    /**
+     * 设置接收消息队列(完整消息帧入队,由分发线程调用 dispatch 解析处理)。
+     *
+     * @param inboundQueue 接收消息队列(null表示在解码线程内直接分发)。
+     */
+    void setInboundQueue(final InboundQueue inboundQueue) {
+        this.inboundQueue = inboundQueue;
     }
 
     /**
@@ -39,121 +127,229 @@ public final class CodecDecoder extends Codec {
      */
     public void addDecode(final byte[] data) {
         if (data == null || data.length == 0) return;
-        if (header == null) {//无消息头
-            synchronized (this) {
-                buffer.write(data, 0, data.length);
-            }
-            if (buffer.size() < HEAD_DATA_MIN_LEN) {
-                logger.warn("接收数据小于最小解析数据[" + HEAD_DATA_MIN_LEN + "]，继续接收...");
-                return;
-            }
-            //数据缓存
-            final ByteArrayInputStream input = new ByteArrayInputStream(buffer.toByteArray());
-            synchronized (this) {
-                buffer.reset();
-            }
-            try {
-                synchronized (this) {
-                    //解析消息头
-                    header = decodeHeader(input);
-                }
-            } catch (Exception e) {
-                logger.error("解析消息头异常:" + e.getMessage(), e);
-                return;
+        addDecode(data, 0, data.length);
+    }
+
+    /**
+     * 添加需要解码的数据。
+     *
+     * @param data 原始字节数据。
+     * @param offset 数据起始位置。
+     * @param length 数据长度。
+     */
+    public synchronized void addDecode(final byte[] data, final int offset, final int length) {
+        if (data == null || length <= 0) return;
+        final int end = offset + length;
+        int pos = offset;
+        while (pos < end) {
+            if (skipping > 0) {//跳过未知消息类型的消息体
+                final int count = Math.min(skipping, end - pos);
+                skipping -= count;
+                pos += count;
+                continue;
             }
-            //剩余消息长度
-            final int available = input.available();
-            if (available > 0) {
-                byte[] buf = new byte[available];
-                final ByteArrayOutputStream output = new ByteArrayOutputStream(available);
-                int count;
-                while ((count = input.read(buf, 0, buf.length)) > 0) {
-                    output.write(buf, 0, count);
-                }
-                if (header.getRemainingLength() == 0) {//无消息体
-                    decodeMessageHandler(header.getType(), null);
-                    synchronized (this) {
-                        header = null;
-                    }
+            if (header == null) {//解析消息头
+                final int typeValue;
+                try {
+                    if (!headerDecoder.update(data[pos++])) continue;
+                    typeValue = headerDecoder.getTypeValue();
+                    header = headerDecoder.take();
+                } catch (Exception e) {
+                    logger.error("解析消息头异常:" + e.getMessage(), e);
+                    //无法定位下一个消息头,丢弃缓存数据
+                    reset();
+                    return;
                 }
-                addDecode(output.toByteArray());
-            } else if (header.getRemainingLength() == 0) {//无剩余长度，无消息体
-                decodeMessageHandler(header.getType(), null);
-                synchronized (this) {
+                if (header.getType() == null) {//未知消息类型,按消息体长度跳过
+                    logger.warn("未知消息类型[" + typeValue + "],跳过消息体[" + header.getRemainingLength() + " bytes]!");
+                    skipping = header.getRemainingLength();
                     header = null;
+                    continue;
+                }
+                if (header.getRemainingLength() == 0) {//无消息体,立即处理
+                    completeMessage(data, pos, 0);
                 }
+                continue;
             }
-        } else {//解析消息体
-            synchronized (this) {//写入缓存流
-                buffer.write(data, 0, data.length);
+            final int len = header.getRemainingLength();
+            if (len > maxInMemorySize) {//超大消息体,分块交付
+                pos += streamLargeBody(data, pos, Math.min(len - streamed, end - pos));
+                continue;
             }
-            //检查数据是否满足消息体长度
-            if (buffer.size() >= header.getRemainingLength()) {
-                //读取数据
-                final byte buf[] = buffer.toByteArray();
-                synchronized (this) {
-                    buffer.reset();
-                }
-                //消息体数据
-                final byte payload[] = Arrays.copyOf(buf, header.getRemainingLength());
-                //消息处理
+            if (body == null && end - pos >= len) {//消息体完整,直接引用原始数据
+                completeMessage(data, pos, len);
+                pos += len;
+                continue;
+            }
+            //消息体不完整,写入缓冲区
+            if (body == null) {
+                body = BufferPool.shared().acquire(len);
+            }
+            final ByteBuffer buffer = body.buffer();
+            final int count = Math.min(len - buffer.position(), end - pos);
+            buffer.put(data, pos, count);
+            pos += count;
+            if (buffer.position() == len) {
+                completeMessage(buffer.array(), buffer.arrayOffset(), len);
+            }
+        }
+    }
+
+    //超大消息体分块交付,返回已处理长度
+    private int streamLargeBody(final byte[] data, final int offset, final int count) {
+        final MessageType type = header.getType();
+        if (!streaming) {
+            streaming = true;
+            streamed = 0;
+            streamListener = largeBodyListener;
+            if (streamListener == null) {
+                logger.warn("消息[" + type + "]消息体[" + header.getRemainingLength() + " bytes]超过内存上限[" + maxInMemorySize + "],丢弃!");
+            } else {
                 try {
-                    decodeMessageHandler(header.getType(), payload);
+                    streamListener.begin(type, header.getFormat(), header.getRemainingLength());
                 } catch (Exception e) {
-                    logger.warn("解析消息处理异常:" + e.getMessage(), e);
+                    logger.error("超大消息体[" + type + "]开始处理异常:" + e.getMessage(), e);
+                    streamListener = null;
                 }
-                //销毁缓存对象
-                synchronized (this) {
-                    header = null;
+            }
+        }
+        if (streamListener != null && count > 0) {
+            try {
+                streamListener.chunk(type, data, offset, count);
+            } catch (Exception e) {
+                logger.error("超大消息体[" + type + "]分块处理异常:" + e.getMessage(), e);
+                abortLargeBody(type);
+            }
+        }
+        streamed += count;
+        if (streamed == header.getRemainingLength()) {//接收完整
+            final LargeBodyListener listener = streamListener;
+            header = null;
+            streaming = false;
+            streamed = 0;
+            streamListener = null;
+            if (listener != null) {
+                try {
+                    listener.end(type);
+                } catch (Exception e) {
+                    logger.error("超大消息体[" + type + "]结束处理异常:" + e.getMessage(), e);
                 }
-                //剩余长度
-                final int available = buf.length - payload.length;
-                if (available > 0) {//有剩余长度
-                    addDecode(Arrays.copyOfRange(buf, payload.length, buf.length));
+            }
+        }
+        return count;
+    }
+
+    //中断超大消息体
+    private void abortLargeBody(final MessageType type) {
+        final LargeBodyListener listener = streamListener;
+        streamListener = null;
+        if (listener != null) {
+            try {
+                listener.abort(type);
+            } catch (Exception e) {
+                logger.warn("超大消息体[" + type + "]中断处理异常:" + e.getMessage(), e);
+            }
+        }
+    }
+
+    //消息接收完整处理
+    private void completeMessage(final byte[] payload, final int offset, final int length) {
+        final MessageType type = header.getType();
+        final BodyFormat format = header.getFormat();
+        header = null;
+        final InboundQueue queue = inboundQueue;
+        if (queue != null) {//入队交由分发线程处理
+            PooledBuffer buf = null;
+            if (length > 0) {
+                if (body != null) {//跨读取的消息体缓冲区直接移交
+                    buf = body;
+                    body = null;
+                } else {
+                    buf = BufferPool.shared().acquire(length);
+                    buf.buffer().put(payload, offset, length);
                 }
             }
+            queue.offer(new InboundFrame(type, format, buf, length));
+            return;
+        }
+        try {
+            deliver(type, format, payload, offset, length);
+        } finally {
+            releaseBody();
         }
     }
 
-    //解析消息数据处理
-    private void decodeMessageHandler(final MessageType type, final byte[] payload) {
+    /**
+     * 分发接收消息队列中的消息帧(分发线程调用,处理完毕后release消息帧)。
+     *
+     * @param frame 消息帧。
+     */
+    void dispatch(final InboundFrame frame) {
         try {
-            if (listener == null) {
-                logger.warn("未设置消息解码监听器!");
-                return;
-            }
-            if (payload == null) {
-                listener.decode(type, null);
-                return;
+            final PooledBuffer buf = frame.getBody();
+            if (buf == null) {
+                deliver(frame.getType(), frame.getFormat(), EMPTY_BODY, 0, 0);
+            } else {
+                deliver(frame.getType(), frame.getFormat(), buf.buffer().array(), buf.buffer().arrayOffset(), frame.getLength());
             }
-            final String json = new String(payload, Codec.UTF8);
-            logger.info("decode[" + type + "]=>\n" + json);
-            switch (type) {
-                case None: {//0.未知消息类型
-                    logger.warn("未知消息类型=>" + type);
-                    break;
-                }
-                case Connack://连接请求应答
-                case Pubrel://推送消息到达请求应答
-                case Suback://用户登录请求应答
-                case Unsuback://用户注销请求应答
-                {
-                    listener.decode(type, new AckModel(json));
-                    break;
-                }
-                case Publish: {//推送消息下行
-                    listener.decode(type, new PublishModel(json));
-                    break;
-                }
-                case Pingresp: {//心跳请求应答
-                    listener.decode(type, PingResponseModel.parseJson(json));
-                    break;
-                }
-                default: {
-                    logger.warn("消息类型[" + type + "]不能被解析!\n" + json);
-                    break;
+        } finally {
+            frame.release();
+        }
+    }
+
+    //解压并分发消息
+    private void deliver(final MessageType type, final BodyFormat format, final byte[] payload, final int offset, final int length) {
+        PooledBuffer inflated = null;
+        try {
+            byte[] data = payload;
+            int off = offset, len = length;
+            if (FrameCompressor.isCompressed(payload, offset, length)) {//预置字典压缩的消息体
+                try {
+                    inflated = FrameCompressor.inflate(payload, offset, length, Math.max(FrameCompressor.MAX_INFLATE_SIZE, maxInMemorySize));
+                } catch (Exception e) {
+                    logger.error("解压消息[" + type + "]异常:" + e.getMessage(), e);
+                    return;
                 }
+                final ByteBuffer buf = inflated.buffer();
+                data = buf.array();
+                off = buf.arrayOffset();
+                len = buf.position();
+            }
+            decodeMessageHandler(type, format, data, off, len);
+        } finally {
+            if (inflated != null) {
+                inflated.release();
             }
+        }
+    }
+
+    /**
+     * 重置解码状态(丢弃未完整的消息,新建连接时调用)。
+     */
+    synchronized void reset() {
+        if (streaming) {
+            abortLargeBody(header.getType());
+            streaming = false;
+            streamed = 0;
+        }
+        header = null;
+        skipping = 0;
+        headerDecoder.reset();
+        releaseBody();
+    }
+
+    //归还消息体缓冲区
+    private void releaseBody() {
+        if (body != null) {
+            body.release();
+            body = null;
+        }
+    }
+
+    //解析消息数据处理
+    private void decodeMessageHandler(final MessageType type, final BodyFormat format, final byte[] payload, final int offset, final int length) {
+        try {
+            registry.dispatch(type, format, payload, offset, length);
         } catch (Exception e) {
             logger.error("解析消息[" + type + "]数据处理异常:" + e.getMessage(), e);
         }
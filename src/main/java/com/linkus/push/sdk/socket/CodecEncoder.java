@@ -11,6 +11,90 @@ import com.linkus.push.sdk.utils.LogWrapper;
 public final class CodecEncoder extends Codec {
     private static final LogWrapper logger = LogWrapper.getLog(CodecEncoder.class);
 
+    /**
+     * 支持的消息体格式位掩码-紧凑二进制。
+     */
+    public static final int FORMATS_BINARY = 0x01;
+    /**
+     * 支持的消息体格式位掩码-预置字典Deflate压缩。
+     */
+    public static final int FORMATS_DEFLATE = 0x02;
+
+    //是否向服务器声明支持二进制消息体
+    private volatile boolean binarySupported = false;
+    //是否向服务器声明支持压缩消息体
+    private volatile boolean compressSupported = false;
+    //压缩阈值(字节)
+    private volatile int compressThreshold = FrameCompressor.DEFAULT_THRESHOLD;
+    //当前连接协商的消息体格式
+    private volatile BodyFormat format = BodyFormat.Json;
+    //当前连接是否压缩消息体
+    private volatile boolean compress = false;
+
+    /**
+     * 设置是否向服务器声明支持二进制消息体(默认不声明,仅使用JSON)。
+     * @param binarySupported
+     * 是否支持。
+     */
+    public void setBinarySupported(final boolean binarySupported) {
+        this.binarySupported = binarySupported;
+    }
+
+    /**
+     * 设置是否向服务器声明支持压缩消息体(默认不声明)。
+     * @param compressSupported
+     * 是否支持。
+     */
+    public void setCompressSupported(final boolean compressSupported) {
+        this.compressSupported = compressSupported;
+    }
+
+    /**
+     * 设置压缩阈值(消息体小于该字节数时不压缩)。
+     * @param compressThreshold
+     * 压缩阈值(字节)。
+     */
+    public void setCompressThreshold(final int compressThreshold) {
+        if(compressThreshold < 0) throw new IllegalArgumentException("compressThreshold");
+        this.compressThreshold = compressThreshold;
+    }
+
+    /**
+     * 应用连接应答协商的消息体格式位掩码。
+     * @param formats
+     * 服务器选定的消息体格式位掩码(null表示未协商)。
+     */
+    public void setNegotiatedFormats(final Integer formats) {
+        final int mask = (formats == null) ? 0 : formats;
+        setFormat((mask & FORMATS_BINARY) != 0 ? BodyFormat.Binary : BodyFormat.Json);
+        this.compress = (mask & FORMATS_DEFLATE) != 0;
+    }
+
+    /**
+     * 获取当前连接是否压缩消息体。
+     * @return 是否压缩。
+     */
+    public boolean getCompress() {
+        return compress;
+    }
+
+    /**
+     * 获取当前连接的消息体格式。
+     * @return 消息体格式。
+     */
+    public BodyFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * 设置当前连接的消息体格式(由连接应答协商结果确定,服务器未选择时为JSON)。
+     * @param format
+     * 消息体格式。
+     */
+    public void setFormat(final BodyFormat format) {
+        this.format = (format == null) ? BodyFormat.Json : format;
+    }
+
     /**
      * 连接请求编码处理。
      * @param access
@@ -29,6 +113,12 @@ public final class CodecEncoder extends Codec {
         buildCommonParams(access, model);
         model.setDeviceAccount(access.getTag());//1.设备用户帐号
         model.setDeviceName(access.getDeviceName());//2.设备名称
+        final int formats = (binarySupported ? FORMATS_BINARY : 0) | (compressSupported ? FORMATS_DEFLATE : 0);
+        if(formats != 0){
+            model.setFormats(formats);//3.支持的消息体格式
+        }
+        //连接请求在协商前,固定使用未压缩的JSON
+        setNegotiatedFormats(null);
         //消息编码处理
         encodeHandler(model, true, handler);
     }
@@ -180,10 +270,11 @@ public final class CodecEncoder extends Codec {
             return;
         }
         //创建消息头
-        final FixedHeader header = new FixedHeader(model.getType(), ack);
-        final byte[] data = encode(header, model.toSignJson());
-        if(data != null && data.length > 0){
-            handler.encode(header.getType(), data);
+        final BodyFormat bodyFormat = (model.getType() == MessageType.Connect) ? BodyFormat.Json : format;
+        final FixedHeader header = new FixedHeader(model.getType(), ack, bodyFormat);
+        final PooledBuffer frame = encode(header, model, compress ? compressThreshold : -1);
+        if(frame != null){
+            handler.encode(header.getType(), frame);
         }
     }
 
@@ -195,9 +286,9 @@ public final class CodecEncoder extends Codec {
          * 编码处理。
          * @param type
          * 发送消息类型。
-         * @param data
-         * 编码处理后的数据。
+         * @param frame
+         * 编码处理后的消息帧(position~limit),处理完毕须release。
          */
-        void encode(final MessageType type, final byte[] data);
+        void encode(final MessageType type, final PooledBuffer frame);
     }
 }
\ No newline at end of file
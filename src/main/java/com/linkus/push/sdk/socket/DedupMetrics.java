@@ -0,0 +1,84 @@
+package com.linkus.push.sdk.socket;
+
+/**
+ * 推送消息去重指标快照。
+ */
+public final class DedupMetrics {
+    private final int capacity, size;
+    private final long lookups, duplicates, evicted;
+
+    /**
+     * 构造函数。
+     * @param capacity
+     * 去重缓存容量。
+     * @param size
+     * 当前缓存的推送ID数。
+     * @param lookups
+     * 累计查找数。
+     * @param duplicates
+     * 累计识别的重复消息数。
+     * @param evicted
+     * 累计淘汰(超出时间窗口或容量)的推送ID数。
+     */
+    DedupMetrics(final int capacity, final int size, final long lookups, final long duplicates, final long evicted){
+        this.capacity = capacity;
+        this.size = size;
+        this.lookups = lookups;
+        this.duplicates = duplicates;
+        this.evicted = evicted;
+    }
+
+    /**
+     * 获取去重缓存容量。
+     * @return 去重缓存容量。
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 获取当前缓存的推送ID数。
+     * @return 推送ID数。
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 获取累计查找数。
+     * @return 累计查找数。
+     */
+    public long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * 获取累计识别的重复消息数。
+     * @return 重复消息数。
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * 获取累计淘汰的推送ID数。
+     * @return 淘汰数。
+     */
+    public long getEvicted() {
+        return evicted;
+    }
+
+    /**
+     * 获取重复命中率。
+     * @return 重复命中率(0~1)。
+     */
+    public double getHitRate() {
+        return lookups == 0 ? 0 : (double) duplicates / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "DedupMetrics[capacity=" + capacity + ",size=" + size + ",lookups=" + lookups
+                + ",duplicates=" + duplicates + ",evicted=" + evicted + ",hitRate=" + getHitRate() + "]";
+    }
+}
@@ -6,9 +6,10 @@ package com.linkus.push.sdk.socket;
  */
 class FixedHeader {
     private MessageType type;
-    private Boolean isDup, isRetain;
+    private Boolean isDup;
     private Qos qos;
     private Integer remainingLength;
+    private BodyFormat format;
 
     /**
      * 构造函数。
@@ -18,13 +19,28 @@ class FixedHeader {
      * 是否须要应答。
      * @param remainingLength
      * 消息体长度。
+     * @param format
+     * 消息体格式。
      */
-    FixedHeader(final MessageType type, final Boolean ack, final Integer remainingLength){
+    FixedHeader(final MessageType type, final Boolean ack, final Integer remainingLength, final BodyFormat format){
         this.type = type;
         this.qos = (ack ? Qos.Ack : Qos.None);
-        this.isRetain = false;
         this.isDup = false;
         this.remainingLength = remainingLength;
+        this.format = format;
+    }
+
+    /**
+     * 构造函数。
+     * @param type
+     * 消息类型。
+     * @param ack
+     * 是否须要应答。
+     * @param format
+     * 消息体格式。
+     */
+    FixedHeader(final MessageType type, final Boolean ack, final BodyFormat format){
+        this(type, ack, 0, format);
     }
 
     /**
@@ -35,7 +51,7 @@ class FixedHeader {
      * 是否须要应答。
      */
     public FixedHeader(final MessageType type, final Boolean ack){
-        this(type, ack, 0);
+        this(type, ack, 0, BodyFormat.Json);
     }
 
     /**
@@ -55,11 +71,11 @@ class FixedHeader {
     }
 
     /**
-     * 获取保持标示。
-     * @return 保持标示。
+     * 获取消息体格式(占用原retain标示位,置位表示二进制消息体)。
+     * @return 消息体格式。
      */
-    public Boolean getRetain() {
-        return isRetain;
+    public BodyFormat getFormat() {
+        return format;
     }
 
     /**
@@ -0,0 +1,99 @@
+package com.linkus.push.sdk.socket;
+
+/**
+ * 固定消息头增量解码器(逐字节解析,可跨多次socket读取续解)。
+ * <p>
+ * 未知的消息类型不视为协议错误,消息头的消息类型为null,由调用方按消息体长度跳过。
+ * </p>
+ */
+final class FixedHeaderDecoder {
+    //等待首字节
+    private static final int STATE_FIRST = 0;
+    //读取消息体长度
+    private static final int STATE_LENGTH = 1;
+    //消息头完整
+    private static final int STATE_DONE = 2;
+
+    private int state = STATE_FIRST;
+    private MessageType type;
+    private int typeValue;
+    private Qos qos;
+    private BodyFormat format;
+    private int remainingLength, multiplier, loops;
+
+    /**
+     * 写入一个字节。
+     * @param b
+     * 字节数据。
+     * @return
+     * 消息头是否已完整。
+     */
+    boolean update(final byte b){
+        final int val = b & 0xFF;
+        switch (state){
+            case STATE_FIRST: {
+                if(val == 0) throw new RuntimeException("读取消息头数据不符合通讯协议!");
+                //消息类型(未知类型为null)
+                typeValue = val >>> 4;
+                type = MessageType.parse(typeValue);
+                //qos
+                qos = Qos.parse((val & 0x06) >>> 1);
+                if(qos == null) throw new RuntimeException("读取消息头数据qos不符合通讯协议!");
+                //retain(消息体格式)
+                format = (val & 0x01) != 0 ? BodyFormat.Binary : BodyFormat.Json;
+                remainingLength = 0;
+                multiplier = 1;
+                loops = 0;
+                state = STATE_LENGTH;
+                return false;
+            }
+            case STATE_LENGTH: {
+                //转换为十进制
+                remainingLength += (val & 0x7f) * multiplier;
+                multiplier *= 128;
+                loops++;
+                if((val & 0x80) == 0){
+                    state = STATE_DONE;
+                    return true;
+                }
+                if(loops >= 4){
+                    throw new RuntimeException("消息长度大于4个字节，不符合通讯协议!");
+                }
+                return false;
+            }
+            default:
+                throw new IllegalStateException("消息头已完整,未取出!");
+        }
+    }
+
+    /**
+     * 获取当前消息头的消息类型值(4位原始值,未知类型时用于日志)。
+     * @return 消息类型值。
+     */
+    int getTypeValue(){
+        return typeValue;
+    }
+
+    /**
+     * 取出已完整的消息头,并重置解码状态(未知消息类型时消息类型为null)。
+     * @return 消息头。
+     */
+    FixedHeader take(){
+        if(state != STATE_DONE) throw new IllegalStateException("消息头不完整!");
+        final FixedHeader header = new FixedHeader(type, (qos == Qos.Ack), remainingLength, format);
+        reset();
+        return header;
+    }
+
+    /**
+     * 重置解码状态。
+     */
+    void reset(){
+        state = STATE_FIRST;
+        type = null;
+        typeValue = 0;
+        qos = null;
+        format = null;
+        remainingLength = 0;
+    }
+}
@@ -0,0 +1,168 @@
+package com.linkus.push.sdk.socket;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 消息体压缩(zlib格式Deflate,使用协议字段预置字典)。
+ * <p>
+ * 压缩后的消息体以zlib头开头且带预置字典标志(FDICT)及字典ID,
+ * JSON消息体以'{'开头、二进制消息体的字典ID校验不可能吻合,因此无需占用消息头标志位即可识别。
+ * 预置字典使仅有两三百字节的消息也能获得压缩收益。
+ * </p>
+ */
+final class FrameCompressor {
+    /**
+     * 默认压缩阈值(消息体小于该字节数时不压缩)。
+     */
+    static final int DEFAULT_THRESHOLD = 128;
+    /**
+     * 解压后消息体最大长度(独立于消息体内存上限,解压后超过内存上限的消息仍在内存中分发)。
+     */
+    static final int MAX_INFLATE_SIZE = 1024 * 1024;
+    /**
+     * 预置字典(出现频率越高的片段越靠后)。
+     */
+    static final byte[] DICTIONARY = ("\"loc-args\":[\"launch-image\":\"action-loc-key\":\"content-available\":1,"
+            + "\"heartRate\":\"afterConnect\":\"deviceType\":\"deviceName\":\"deviceAccount\":\""
+            + "\"sound\":\"default\",\"badge\":1,\"alert\":{\"body\":\"\",\"loc-key\":\""
+            + "{\"result\":0,\"msg\":\"\"}\"account\":\"\",\"deviceId\":\"\",\"sign\":\""
+            + "\"},\"aps\":{\"content\":\"\",\"contentId\":\"{\"pushId\":\"").getBytes(Codec.UTF8);
+    //预置字典ID(Adler-32)
+    private static final int DICTIONARY_ID;
+
+    //zlib头(CMF:deflate+32K窗口)
+    private static final int ZLIB_CMF = 0x78, ZLIB_FDICT = 0x20, ZLIB_HEADER_LEN = 6;
+
+    static {
+        final Adler32 adler = new Adler32();
+        adler.update(DICTIONARY, 0, DICTIONARY.length);
+        DICTIONARY_ID = (int) adler.getValue();
+    }
+
+    private static final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>(){
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(Deflater.DEFAULT_COMPRESSION);
+        }
+    };
+
+    private static final ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>(){
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+    };
+
+    private FrameCompressor(){}
+
+    /**
+     * 检查消息体是否为预置字典压缩数据。
+     * @param data
+     * 数据。
+     * @param offset
+     * 起始位置。
+     * @param length
+     * 数据长度。
+     * @return 是否已压缩。
+     */
+    static boolean isCompressed(final byte[] data, final int offset, final int length){
+        if(data == null || length <= ZLIB_HEADER_LEN) return false;
+        final int cmf = data[offset] & 0xFF, flg = data[offset + 1] & 0xFF;
+        if(cmf != ZLIB_CMF || (flg & ZLIB_FDICT) == 0 || ((cmf << 8) | flg) % 31 != 0) return false;
+        final int id = ((data[offset + 2] & 0xFF) << 24) | ((data[offset + 3] & 0xFF) << 16)
+                | ((data[offset + 4] & 0xFF) << 8) | (data[offset + 5] & 0xFF);
+        return id == DICTIONARY_ID;
+    }
+
+    /**
+     * 压缩消息体。
+     * @param data
+     * 数据。
+     * @param offset
+     * 起始位置。
+     * @param length
+     * 数据长度。
+     * @param reserve
+     * 压缩数据之前预留的字节数(用于回填消息头)。
+     * @return 压缩后的缓冲区(压缩数据位于 reserve~position),压缩后未变小时返回null。
+     */
+    static PooledBuffer deflate(final byte[] data, final int offset, final int length, final int reserve){
+        final Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+        final PooledBuffer frame = BufferPool.shared().acquire(reserve + length);
+        final ByteBuffer buf = frame.buffer();
+        //压缩结果须小于原始长度
+        final int limit = buf.arrayOffset() + reserve + length - 1;
+        int pos = buf.arrayOffset() + reserve;
+        while (!deflater.finished() && pos < limit){
+            pos += deflater.deflate(buf.array(), pos, limit - pos);
+        }
+        if(!deflater.finished()){
+            frame.release();
+            return null;
+        }
+        buf.position(pos - buf.arrayOffset());
+        return frame;
+    }
+
+    /**
+     * 解压消息体。
+     * @param data
+     * 压缩数据。
+     * @param offset
+     * 起始位置。
+     * @param length
+     * 数据长度。
+     * @param maxSize
+     * 解压后消息体长度上限。
+     * @return 解压后的缓冲区(数据位于 0~position),使用完毕须release。
+     */
+    static PooledBuffer inflate(final byte[] data, final int offset, final int length, final int maxSize){
+        final Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(data, offset, length);
+        PooledBuffer out = BufferPool.shared().acquire(Math.min(length << 2, maxSize));
+        try {
+            while (true) {
+                final ByteBuffer buf = out.buffer();
+                if (!buf.hasRemaining()) {//空间不足,换用更大的缓冲区
+                    if (buf.capacity() >= maxSize) {
+                        throw new RuntimeException("解压后消息体超过上限[" + maxSize + "]!");
+                    }
+                    final PooledBuffer larger = BufferPool.shared().acquire(Math.min(buf.capacity() << 1, maxSize));
+                    buf.flip();
+                    larger.buffer().put(buf);
+                    out.release();
+                    out = larger;
+                    continue;
+                }
+                final int count = inflater.inflate(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+                buf.position(buf.position() + count);
+                if (inflater.finished()) break;
+                if (count == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(DICTIONARY);
+                    } else if (inflater.needsInput()) {
+                        throw new RuntimeException("压缩消息体数据不完整!");
+                    } else {
+                        throw new RuntimeException("解压消息体失败!");
+                    }
+                }
+            }
+            return out;
+        } catch (DataFormatException e) {
+            out.release();
+            throw new RuntimeException("解压消息体失败:" + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.utils.LogWrapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 消息帧合并发送器(多生产者单写线程)。
+ * <p>
+ * 消息帧以无锁方式入队,由唯一的写线程按入队顺序写入socket:
+ * 写线程在合并窗口内等待后续消息帧,窗口到期或累计字节达到批量上限时合并为一次写入并flush;
+ * 连接、心跳、断开连接等控制消息帧到达时立即连同已排队的消息帧一起发送。
+ * 排队字节数超过上限时入队线程阻塞等待(背压)。
+ * 每个socket连接对应一个实例,连接关闭或写入失败后不再可用。
+ * </p>
+ */
+final class FrameWriter implements Runnable {
+    private static final LogWrapper logger = LogWrapper.getLog(FrameWriter.class);
+
+    /**
+     * 默认合并窗口(毫秒)。
+     */
+    static final int DEF_WINDOW_MILLIS = 20;
+    /**
+     * 默认单次写入字节上限。
+     */
+    static final int DEF_BATCH_BYTES = 4096;
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final OutputStream out;
+    private final FrameWriterListener listener;
+    private final OutboundBudget budget;
+    private final int windowMillis, batchBytes;
+
+    private volatile boolean running = true, urgent = false;
+    //写线程及其是否处于等待状态
+    private volatile Thread writer;
+    private volatile boolean parked = false;
+
+    /**
+     * 构造函数。
+     * @param out
+     * socket输出流。
+     * @param windowMillis
+     * 合并窗口(毫秒),0表示不等待。
+     * @param batchBytes
+     * 单次写入字节上限。
+     * @param budget
+     * 发送队列字节预算。
+     * @param listener
+     * 发送监听器。
+     */
+    FrameWriter(final OutputStream out, final int windowMillis, final int batchBytes, final OutboundBudget budget,
+                final FrameWriterListener listener){
+        if(out == null) throw new IllegalArgumentException("out");
+        if(windowMillis < 0) throw new IllegalArgumentException("windowMillis");
+        if(batchBytes <= 0) throw new IllegalArgumentException("batchBytes");
+        if(budget == null) throw new IllegalArgumentException("budget");
+        this.out = out;
+        this.windowMillis = windowMillis;
+        this.batchBytes = batchBytes;
+        this.budget = budget;
+        this.listener = listener;
+    }
+
+    /**
+     * 启动写线程。
+     */
+    void start(){
+        final Thread thread = new Thread(this, "push-socket-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    /**
+     * 消息帧入队(排队字节数超过上限时阻塞)。
+     * @param type
+     * 消息类型。
+     * @param frame
+     * 消息帧(入队后由发送器负责release)。
+     * @return 是否入队成功(发送器已关闭或背压等待超时时释放消息帧并返回false)。
+     */
+    boolean offer(final MessageType type, final PooledBuffer frame){
+        final int size = frame.buffer().remaining();
+        final long enqueueNanos = running ? budget.acquire(type, size, true) : -1;
+        if(enqueueNanos < 0){
+            frame.release();
+            return false;
+        }
+        queue.add(new Pending(type, frame, size, enqueueNanos));
+        if(isUrgent(type)){
+            urgent = true;
+        }
+        if(!running){//入队期间发送器已关闭
+            discard();
+            return false;
+        }
+        if(parked){
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * 关闭发送器(未发送的消息帧将被丢弃)。
+     */
+    void close(){
+        if(!running) return;
+        running = false;
+        budget.close();
+        final Thread thread = writer;
+        if(thread != null) LockSupport.unpark(thread);
+        discard();
+    }
+
+    /**
+     * 获取发送队列指标。
+     * @return 队列指标。
+     */
+    QueueMetrics metrics(){
+        return budget.metrics();
+    }
+
+    //丢弃未发送的消息帧
+    private void discard(){
+        Pending p;
+        while ((p = queue.poll()) != null){
+            p.frame.release();
+            budget.dropped(p.size);
+        }
+    }
+
+    //是否为需立即发送的控制消息
+    private static boolean isUrgent(final MessageType type){
+        return type == MessageType.Connect || type == MessageType.Pingreq || type == MessageType.Disconnect;
+    }
+
+    @Override
+    public void run() {
+        final List<Pending> batch = new ArrayList<>();
+        try {
+            while (running) {
+                final Pending first = queue.peek();
+                if (first == null) {//等待消息帧入队
+                    await(0L);
+                    continue;
+                }
+                //合并窗口
+                final long deadline = first.enqueueNanos + windowMillis * 1000000L;
+                long remain;
+                while (running && !urgent && budget.getBytes() < batchBytes
+                        && (remain = deadline - System.nanoTime()) > 0) {
+                    await(remain);
+                }
+                if (!running) break;
+                drain(batch);
+                write(batch);
+                while (!batch.isEmpty()) {
+                    final Pending p = batch.remove(0);
+                    p.frame.release();
+                    budget.written(p.size, p.enqueueNanos);
+                    if (listener != null) listener.written(p.type);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("send data exception:" + e.getMessage(), e);
+            if (listener != null) listener.writeFailed(e);
+        } catch (Exception e) {
+            logger.error("writer thread exception:" + e.getMessage(), e);
+            if (listener != null) listener.writeFailed(e);
+        } finally {
+            for (Pending p : batch) {
+                p.frame.release();
+                budget.dropped(p.size);
+            }
+            close();
+        }
+    }
+
+    //写线程等待(nanos为0表示等待至消息帧入队)
+    private void await(final long nanos){
+        parked = true;
+        try {
+            if (!running || (nanos == 0L ? !queue.isEmpty() : urgent || budget.getBytes() >= batchBytes)) return;
+            if (nanos == 0L) {
+                LockSupport.park(this);
+            } else {
+                LockSupport.parkNanos(this, nanos);
+            }
+        } finally {
+            parked = false;
+        }
+    }
+
+    //取出本次发送的消息帧(至少一个,累计不超过批量上限,遇到控制消息截止)
+    private void drain(final List<Pending> batch){
+        urgent = false;
+        int bytes = 0;
+        Pending p;
+        while ((p = queue.peek()) != null) {
+            if (!batch.isEmpty() && bytes + p.size > batchBytes) break;
+            queue.poll();
+            batch.add(p);
+            bytes += p.size;
+            if (isUrgent(p.type)) break;
+        }
+        for (Pending rest : queue) {
+            if (isUrgent(rest.type)) {
+                urgent = true;
+                break;
+            }
+        }
+    }
+
+    //合并写入
+    private void write(final List<Pending> batch) throws IOException {
+        if (batch.size() == 1) {
+            final ByteBuffer data = batch.get(0).frame.buffer();
+            out.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        } else {
+            int total = 0;
+            for (Pending p : batch) {
+                total += p.size;
+            }
+            final PooledBuffer merged = BufferPool.shared().acquire(total);
+            try {
+                final ByteBuffer buf = merged.buffer();
+                for (Pending p : batch) {
+                    buf.put(p.frame.buffer().duplicate());
+                }
+                out.write(buf.array(), buf.arrayOffset(), buf.position());
+            } finally {
+                merged.release();
+            }
+        }
+        out.flush();
+        logger.info("send data successful![frames:" + batch.size() + "]");
+    }
+
+    //待发送消息帧
+    private static final class Pending {
+        final MessageType type;
+        final PooledBuffer frame;
+        final int size;
+        final long enqueueNanos;
+
+        Pending(final MessageType type, final PooledBuffer frame, final int size, final long enqueueNanos){
+            this.type = type;
+            this.frame = frame;
+            this.size = size;
+            this.enqueueNanos = enqueueNanos;
+        }
+    }
+
+    /**
+     * 发送监听器。
+     */
+    interface FrameWriterListener {
+        /**
+         * 消息帧已写入socket。
+         * @param type
+         * 消息类型。
+         */
+        void written(final MessageType type);
+
+        /**
+         * 写入失败(发送器已关闭)。
+         * @param e
+         * 异常。
+         */
+        void writeFailed(final Exception e);
+    }
+}
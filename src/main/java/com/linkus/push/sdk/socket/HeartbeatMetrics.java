@@ -0,0 +1,112 @@
+package com.linkus.push.sdk.socket;
+
+/**
+ * 自适应心跳指标快照。
+ */
+public final class HeartbeatMetrics {
+    private final String network;
+    private final int baseSeconds, intervalSeconds, ceilingSeconds;
+    private final long wakeups, pings, missed, wakeupsSaved;
+
+    /**
+     * 构造函数。
+     * @param network
+     * 当前网络标识。
+     * @param baseSeconds
+     * 服务器下发的心跳间隔(秒)。
+     * @param intervalSeconds
+     * 当前心跳间隔(秒)。
+     * @param ceilingSeconds
+     * 当前网络探测失败的心跳间隔(秒,0表示未失败)。
+     * @param wakeups
+     * 累计心跳唤醒数。
+     * @param pings
+     * 累计收到心跳应答数。
+     * @param missed
+     * 累计心跳应答超时数。
+     * @param wakeupsSaved
+     * 相比服务器心跳间隔累计节省的唤醒数。
+     */
+    HeartbeatMetrics(final String network, final int baseSeconds, final int intervalSeconds, final int ceilingSeconds,
+                     final long wakeups, final long pings, final long missed, final long wakeupsSaved){
+        this.network = network;
+        this.baseSeconds = baseSeconds;
+        this.intervalSeconds = intervalSeconds;
+        this.ceilingSeconds = ceilingSeconds;
+        this.wakeups = wakeups;
+        this.pings = pings;
+        this.missed = missed;
+        this.wakeupsSaved = wakeupsSaved;
+    }
+
+    /**
+     * 获取当前网络标识。
+     * @return 网络标识。
+     */
+    public String getNetwork() {
+        return network;
+    }
+
+    /**
+     * 获取服务器下发的心跳间隔。
+     * @return 心跳间隔(秒)。
+     */
+    public int getBaseSeconds() {
+        return baseSeconds;
+    }
+
+    /**
+     * 获取当前心跳间隔。
+     * @return 心跳间隔(秒)。
+     */
+    public int getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    /**
+     * 获取当前网络探测失败的心跳间隔。
+     * @return 心跳间隔(秒,0表示未失败)。
+     */
+    public int getCeilingSeconds() {
+        return ceilingSeconds;
+    }
+
+    /**
+     * 获取累计心跳唤醒数。
+     * @return 唤醒数。
+     */
+    public long getWakeups() {
+        return wakeups;
+    }
+
+    /**
+     * 获取累计收到心跳应答数。
+     * @return 心跳应答数。
+     */
+    public long getPings() {
+        return pings;
+    }
+
+    /**
+     * 获取累计心跳应答超时数。
+     * @return 超时数。
+     */
+    public long getMissed() {
+        return missed;
+    }
+
+    /**
+     * 获取相比服务器心跳间隔累计节省的唤醒数。
+     * @return 节省的唤醒数。
+     */
+    public long getWakeupsSaved() {
+        return wakeupsSaved;
+    }
+
+    @Override
+    public String toString() {
+        return "HeartbeatMetrics[network=" + network + ",baseSeconds=" + baseSeconds + ",intervalSeconds=" + intervalSeconds
+                + ",ceilingSeconds=" + ceilingSeconds + ",wakeups=" + wakeups + ",pings=" + pings
+                + ",missed=" + missed + ",wakeupsSaved=" + wakeupsSaved + "]";
+    }
+}
@@ -0,0 +1,119 @@
+package com.linkus.push.sdk.socket;
+
+import java.io.File;
+
+/**
+ * 接收的完整消息帧(消息体位于池化缓冲区 0~length,或超大消息体落盘的临时文件)。
+ */
+final class InboundFrame {
+    private final MessageType type;
+    private final BodyFormat format;
+    private final PooledBuffer body;
+    private final int length;
+    private File file;
+    private long enqueueNanos;
+
+    /**
+     * 构造函数。
+     * @param type
+     * 消息类型。
+     * @param format
+     * 消息体格式。
+     * @param body
+     * 消息体缓冲区(无消息体时为null)。
+     * @param length
+     * 消息体长度。
+     */
+    InboundFrame(final MessageType type, final BodyFormat format, final PooledBuffer body, final int length){
+        this.type = type;
+        this.format = format;
+        this.body = body;
+        this.length = length;
+    }
+
+    /**
+     * 构造函数(超大消息体临时文件)。
+     * @param type
+     * 消息类型。
+     * @param format
+     * 消息体格式。
+     * @param file
+     * 消息体临时文件(未取出时由release删除)。
+     */
+    InboundFrame(final MessageType type, final BodyFormat format, final File file){
+        this(type, format, null, 0);
+        this.file = file;
+    }
+
+    /**
+     * 获取消息类型。
+     * @return 消息类型。
+     */
+    MessageType getType() {
+        return type;
+    }
+
+    /**
+     * 获取消息体格式。
+     * @return 消息体格式。
+     */
+    BodyFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * 获取消息体缓冲区。
+     * @return 消息体缓冲区(无消息体时为null)。
+     */
+    PooledBuffer getBody() {
+        return body;
+    }
+
+    /**
+     * 获取消息体长度。
+     * @return 消息体长度。
+     */
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * 取出消息体临时文件(取出后由调用方负责删除)。
+     * @return 消息体临时文件(非落盘消息返回null)。
+     */
+    File takeFile() {
+        final File f = file;
+        file = null;
+        return f;
+    }
+
+    /**
+     * 获取入队时间(纳秒)。
+     * @return 入队时间。
+     */
+    long getEnqueueNanos() {
+        return enqueueNanos;
+    }
+
+    /**
+     * 设置入队时间(纳秒)。
+     * @param enqueueNanos
+     * 入队时间。
+     */
+    void setEnqueueNanos(final long enqueueNanos) {
+        this.enqueueNanos = enqueueNanos;
+    }
+
+    /**
+     * 归还消息体缓冲区(删除未取出的临时文件)。
+     */
+    void release(){
+        if(body != null) body.release();
+        final File f = file;
+        file = null;
+        if(f != null && f.exists()){
+            //删除失败的遗留文件由 TempFileBodySpiller 启动时清理
+            f.delete();
+        }
+    }
+}
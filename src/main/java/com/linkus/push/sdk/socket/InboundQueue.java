@@ -0,0 +1,205 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.utils.LogWrapper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 接收消息队列(有界无锁单生产者单消费者环形队列)。
+ * <p>
+ * socket读取线程解析出完整消息帧后入队,分发线程出队后解压、解析并回调消息处理器,
+ * 读取延迟与分发延迟互不影响。队列满时按溢出策略处理;丢弃最早消息时由生产者以CAS推进队头,
+ * 与消费者出队竞争,竞争失败的一方放弃该消息。
+ * 每个socket连接对应一个实例,关闭后消费者取完剩余消息即退出。
+ * </p>
+ */
+final class InboundQueue {
+    private static final LogWrapper logger = LogWrapper.getLog(InboundQueue.class);
+
+    /**
+     * 默认队列容量。
+     */
+    static final int DEF_CAPACITY = 256;
+
+    private final AtomicReferenceArray<InboundFrame> slots;
+    private final int mask;
+    private final OverflowPolicy policy;
+    private final OverflowListener listener;
+
+    //队头(消费者推进,丢弃最早消息时生产者CAS推进)、队尾(仅生产者推进)
+    private final AtomicLong head = new AtomicLong(0), tail = new AtomicLong(0);
+    //等待中的生产者/消费者线程
+    private volatile Thread producerWaiter, consumerWaiter;
+    private volatile boolean closed = false, overflowed = false;
+
+    //指标(仅生产者写入)
+    private volatile int maxDepth = 0;
+    private volatile long enqueued = 0, dropped = 0, blockedNanos = 0;
+    //排队延迟指标(仅消费者写入)
+    private volatile long taken = 0, totalLatencyNanos = 0, maxLatencyNanos = 0;
+
+    /**
+     * 构造函数。
+     * @param capacity
+     * 队列容量(向上取整为2的幂)。
+     * @param policy
+     * 溢出策略。
+     * @param listener
+     * 溢出断开连接监听器(溢出策略为Disconnect时首次溢出回调)。
+     */
+    InboundQueue(final int capacity, final OverflowPolicy policy, final OverflowListener listener){
+        if(capacity <= 0 || capacity > (1 << 16)) throw new IllegalArgumentException("capacity");
+        if(policy == null) throw new IllegalArgumentException("policy");
+        int size = 1;
+        while (size < capacity) size <<= 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.policy = policy;
+        this.listener = listener;
+    }
+
+    /**
+     * 消息帧入队(仅限生产者线程)。
+     * @param frame
+     * 消息帧(入队后由队列或消费者负责release)。
+     * @return 是否入队成功。
+     */
+    boolean offer(final InboundFrame frame){
+        final long t = tail.get();
+        while (!closed && t - head.get() > mask){//队列已满
+            if(policy == OverflowPolicy.DropOldest){
+                dropOldest(t);
+            }else if(policy == OverflowPolicy.Disconnect){
+                drop(frame);
+                if(!overflowed){
+                    overflowed = true;
+                    logger.warn("接收消息队列溢出,断开连接=>" + metrics());
+                    if(listener != null) listener.overflow(this);
+                }
+                return false;
+            }else{
+                awaitSpace(t);
+            }
+        }
+        if(closed){
+            drop(frame);
+            return false;
+        }
+        frame.setEnqueueNanos(System.nanoTime());
+        slots.set((int) (t & mask), frame);
+        tail.set(t + 1);//volatile写,保证随后读取消费者等待标记时不会错过唤醒
+        enqueued++;
+        final int depth = (int) (t + 1 - head.get());
+        if(depth > maxDepth) maxDepth = depth;
+        final Thread waiter = consumerWaiter;
+        if(waiter != null) LockSupport.unpark(waiter);
+        return true;
+    }
+
+    //丢弃最早入队的消息
+    private void dropOldest(final long t){
+        final long h = head.get();
+        if(t - h <= mask) return;//消费者已出队,队列有空位
+        final InboundFrame oldest = slots.get((int) (h & mask));
+        if(head.compareAndSet(h, h + 1)){
+            logger.warn("接收消息队列已满,丢弃最早消息[" + oldest.getType() + "]!");
+            drop(oldest);
+        }
+    }
+
+    //阻塞等待队列空位
+    private void awaitSpace(final long t){
+        final long start = System.nanoTime();
+        producerWaiter = Thread.currentThread();
+        try {
+            while (!closed && t - head.get() > mask){
+                LockSupport.park(this);
+            }
+        }finally {
+            producerWaiter = null;
+            blockedNanos += System.nanoTime() - start;
+        }
+    }
+
+    //丢弃消息帧
+    private void drop(final InboundFrame frame){
+        dropped++;
+        frame.release();
+    }
+
+    /**
+     * 消息帧出队(仅限消费者线程,队列为空时阻塞)。
+     * @return 消息帧(使用完毕须release),队列已关闭且为空时返回null。
+     */
+    InboundFrame take(){
+        while (true){
+            final InboundFrame frame = poll();
+            if(frame != null){
+                final long latency = System.nanoTime() - frame.getEnqueueNanos();
+                taken++;
+                totalLatencyNanos += latency;
+                if(latency > maxLatencyNanos) maxLatencyNanos = latency;
+                return frame;
+            }
+            if(closed && head.get() >= tail.get()) return null;
+            consumerWaiter = Thread.currentThread();
+            try {
+                if(!closed && head.get() >= tail.get()){
+                    LockSupport.park(this);
+                }
+            }finally {
+                consumerWaiter = null;
+            }
+        }
+    }
+
+    //非阻塞出队
+    private InboundFrame poll(){
+        while (true){
+            final long h = head.get();
+            if(h >= tail.get()) return null;
+            final InboundFrame frame = slots.get((int) (h & mask));
+            if(head.compareAndSet(h, h + 1)){
+                final Thread waiter = producerWaiter;
+                if(waiter != null) LockSupport.unpark(waiter);
+                return frame;
+            }
+            //已被生产者丢弃,重试
+        }
+    }
+
+    /**
+     * 关闭队列(生产者停止入队,消费者取完剩余消息后退出)。
+     */
+    void close(){
+        closed = true;
+        final Thread producer = producerWaiter, consumer = consumerWaiter;
+        if(producer != null) LockSupport.unpark(producer);
+        if(consumer != null) LockSupport.unpark(consumer);
+    }
+
+    /**
+     * 获取队列指标快照。
+     * @return 队列指标。
+     */
+    QueueMetrics metrics(){
+        final long count = taken;
+        return new QueueMetrics(mask + 1, (int) Math.max(0L, tail.get() - head.get()), maxDepth,
+                enqueued, dropped, blockedNanos / 1000000L,
+                count == 0 ? 0 : totalLatencyNanos / count / 1000L, maxLatencyNanos / 1000L);
+    }
+
+    /**
+     * 溢出监听器。
+     */
+    interface OverflowListener {
+        /**
+         * 队列溢出(溢出策略为Disconnect)。
+         * @param queue
+         * 接收消息队列。
+         */
+        void overflow(final InboundQueue queue);
+    }
+}
@@ -0,0 +1,319 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.utils.LogWrapper;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 待应答请求跟踪(时间轮超时,dup标示重发)。
+ * <p>
+ * 须应答(Qos.Ack)的请求消息帧发送时复制一份登记,按消息类型及序号跟踪;
+ * 应答消息不携带请求标识,同一类型的应答按请求发送顺序依次匹配。
+ * 超时检查使用哈希时间轮(每格100毫秒),仅在有待应答请求时运行:
+ * 超时后置位消息头dup标示重发,超时时长逐次加倍,重发达到上限后通知失败。
+ * </p>
+ */
+final class InflightTracker implements Runnable {
+    private static final LogWrapper logger = LogWrapper.getLog(InflightTracker.class);
+
+    /**
+     * 默认应答超时(毫秒)。
+     */
+    static final int DEF_TIMEOUT_MILLIS = 10000;
+    /**
+     * 默认最多发送次数(含首次发送)。
+     */
+    static final int DEF_MAX_ATTEMPTS = 3;
+
+    private static final int TICK_MILLIS = 100, WHEEL_SIZE = 512;
+    //消息头首字节dup标示位(同 FixedHeader.getDup)
+    private static final int DUP_FLAG = 0x08;
+
+    private final InflightListener listener;
+    private final int timeoutMillis, maxAttempts;
+
+    //以下由对象锁保护
+    private final Entry[] wheel = new Entry[WHEEL_SIZE];
+    private final Map<MessageType, ArrayDeque<Entry>> pending = new EnumMap<>(MessageType.class);
+    private final long startTime = System.currentTimeMillis();
+    private long tick = 0, seq = 0;
+    private int size = 0;
+    private boolean running = false;
+
+    /**
+     * 构造函数。
+     * @param timeoutMillis
+     * 应答超时(毫秒)。
+     * @param maxAttempts
+     * 最多发送次数(含首次发送)。
+     * @param listener
+     * 跟踪监听器。
+     */
+    InflightTracker(final int timeoutMillis, final int maxAttempts, final InflightListener listener){
+        if(timeoutMillis <= 0) throw new IllegalArgumentException("timeoutMillis");
+        if(maxAttempts <= 0) throw new IllegalArgumentException("maxAttempts");
+        if(listener == null) throw new IllegalArgumentException("listener");
+        this.timeoutMillis = timeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.listener = listener;
+    }
+
+    /**
+     * 获取请求对应的应答消息类型。
+     * @param type
+     * 请求消息类型。
+     * @return 应答消息类型,不须跟踪时返回null。
+     */
+    static MessageType responseOf(final MessageType type){
+        switch (type){
+            case Connect:
+                return MessageType.Connack;
+            case Subscribe:
+                return MessageType.Suback;
+            case Unsubscribe:
+                return MessageType.Unsuback;
+            case Pingreq:
+                return MessageType.Pingresp;
+            case Puback:
+                return MessageType.Pubrel;
+            default:
+                return null;
+        }
+    }
+
+    //获取应答对应的请求消息类型
+    private static MessageType requestOf(final MessageType type){
+        switch (type){
+            case Connack:
+                return MessageType.Connect;
+            case Suback:
+                return MessageType.Subscribe;
+            case Unsuback:
+                return MessageType.Unsubscribe;
+            case Pingresp:
+                return MessageType.Pingreq;
+            case Pubrel:
+                return MessageType.Puback;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 登记须应答的请求(消息帧头Qos非Ack或类型无应答时忽略)。
+     * @param type
+     * 请求消息类型。
+     * @param frame
+     * 消息帧(position~limit,复制后不修改)。
+     */
+    void track(final MessageType type, final PooledBuffer frame){
+        final ByteBuffer buf = frame.buffer();
+        if(responseOf(type) == null || buf.remaining() == 0) return;
+        if(((buf.get(buf.position()) & 0x06) >>> 1) != Qos.Ack.getVal()) return;
+        final byte[] data = new byte[buf.remaining()];
+        buf.duplicate().get(data);
+        synchronized (this){
+            if(!running){//时间轮空闲期间未推进,从当前时间起算
+                tick = currentTick();
+            }
+            final Entry e = new Entry(type, ++seq, data);
+            ArrayDeque<Entry> queue = pending.get(type);
+            if(queue == null){
+                queue = new ArrayDeque<>();
+                pending.put(type, queue);
+            }
+            queue.add(e);
+            schedule(e, timeoutMillis);
+            size++;
+            if(!running){
+                running = true;
+                final Thread thread = new Thread(this, "push-socket-inflight");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+
+    /**
+     * 收到应答,完成最早的同类请求。
+     * @param responseType
+     * 应答消息类型。
+     * @return 是否有匹配的请求。
+     */
+    synchronized boolean complete(final MessageType responseType){
+        final MessageType type = requestOf(responseType);
+        if(type == null) return false;
+        final ArrayDeque<Entry> queue = pending.get(type);
+        final Entry e = queue == null ? null : queue.poll();
+        if(e == null) return false;
+        unlink(e);
+        size--;
+        return true;
+    }
+
+    /**
+     * 连接关闭,所有待应答请求以失败通知。
+     */
+    void abort(){
+        final List<Entry> failed = new ArrayList<>();
+        synchronized (this){
+            for(ArrayDeque<Entry> queue : pending.values()){
+                for(Entry e : queue){
+                    unlink(e);
+                    failed.add(e);
+                }
+                queue.clear();
+            }
+            size = 0;
+        }
+        for(Entry e : failed){
+            listener.failed(e.type, e.seq, e.attempts, true);
+        }
+    }
+
+    /**
+     * 获取待应答请求数。
+     * @return 待应答请求数。
+     */
+    synchronized int size(){
+        return size;
+    }
+
+    private long currentTick(){
+        return (System.currentTimeMillis() - startTime) / TICK_MILLIS;
+    }
+
+    //登记到时间轮
+    private void schedule(final Entry e, final long delayMillis){
+        e.expireTick = tick + Math.max(1L, (delayMillis + TICK_MILLIS - 1) / TICK_MILLIS);
+        final int bucket = (int) (e.expireTick & (WHEEL_SIZE - 1));
+        e.bucket = bucket;
+        e.prev = null;
+        e.next = wheel[bucket];
+        if(e.next != null) e.next.prev = e;
+        wheel[bucket] = e;
+    }
+
+    //从时间轮移除
+    private void unlink(final Entry e){
+        if(e.bucket < 0) return;
+        if(e.prev != null){
+            e.prev.next = e.next;
+        }else {
+            wheel[e.bucket] = e.next;
+        }
+        if(e.next != null) e.next.prev = e.prev;
+        e.prev = e.next = null;
+        e.bucket = -1;
+    }
+
+    @Override
+    public void run() {
+        final List<Entry> resend = new ArrayList<>(), failed = new ArrayList<>();
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (size == 0) {//无待应答请求,结束时间轮线程
+                        running = false;
+                        return;
+                    }
+                    final long now = currentTick();
+                    while (tick < now) {
+                        tick++;
+                        expire(resend, failed);
+                    }
+                }
+                for (Entry e : resend) {
+                    logger.warn("request[" + e.type + "#" + e.seq + "] ack timeout, resend[" + e.attempts + "]...");
+                    listener.retransmit(e.type, e.frame);
+                }
+                for (Entry e : failed) {
+                    logger.error("request[" + e.type + "#" + e.seq + "] ack timeout after " + e.attempts + " attempts!");
+                    listener.failed(e.type, e.seq, e.attempts, false);
+                }
+                resend.clear();
+                failed.clear();
+                Thread.sleep(TICK_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                running = false;
+            }
+        } catch (RuntimeException e) {
+            logger.error("inflight tracker exception:" + e.getMessage(), e);
+            synchronized (this) {
+                running = false;
+            }
+        }
+    }
+
+    //处理当前格到期的请求
+    private void expire(final List<Entry> resend, final List<Entry> failed){
+        Entry e = wheel[(int) (tick & (WHEEL_SIZE - 1))];
+        while (e != null){
+            final Entry next = e.next;
+            if(e.expireTick <= tick){
+                unlink(e);
+                if(e.attempts < maxAttempts){//dup标示重发,超时加倍
+                    e.attempts++;
+                    e.frame[0] |= DUP_FLAG;
+                    schedule(e, (long) timeoutMillis << Math.min(e.attempts - 1, 6));
+                    resend.add(e);
+                }else {
+                    pending.get(e.type).remove(e);
+                    size--;
+                    failed.add(e);
+                }
+            }
+            e = next;
+        }
+    }
+
+    //待应答请求
+    private static final class Entry {
+        final MessageType type;
+        final long seq;
+        final byte[] frame;
+        int attempts = 1, bucket = -1;
+        long expireTick;
+        Entry prev, next;
+
+        Entry(final MessageType type, final long seq, final byte[] frame){
+            this.type = type;
+            this.seq = seq;
+            this.frame = frame;
+        }
+    }
+
+    /**
+     * 跟踪监听器(在时间轮线程或关闭连接的线程中回调)。
+     */
+    interface InflightListener {
+        /**
+         * 应答超时,重发请求(消息头已置位dup标示)。
+         * @param type
+         * 请求消息类型。
+         * @param frame
+         * 消息帧数据(只读)。
+         */
+        void retransmit(final MessageType type, final byte[] frame);
+
+        /**
+         * 请求失败(重发达到上限或连接关闭)。
+         * @param type
+         * 请求消息类型。
+         * @param seq
+         * 请求序号。
+         * @param attempts
+         * 已发送次数。
+         * @param closed
+         * 是否因连接关闭。
+         */
+        void failed(final MessageType type, final long seq, final int attempts, final boolean closed);
+    }
+}
@@ -0,0 +1,44 @@
+package com.linkus.push.sdk.socket;
+
+/**
+ * 超大消息体分块监听器(消息体长度超过解码器内存上限时,按socket读取分块交付,不在内存中缓存整个消息体)。
+ */
+public interface LargeBodyListener {
+    /**
+     * 开始接收消息体。
+     * @param type
+     * 消息类型。
+     * @param format
+     * 消息体格式。
+     * @param length
+     * 消息体长度。
+     */
+    void begin(final MessageType type, final BodyFormat format, final int length);
+
+    /**
+     * 接收消息体分块(数据仅在调用期间有效)。
+     * @param type
+     * 消息类型。
+     * @param data
+     * 数据。
+     * @param offset
+     * 起始位置。
+     * @param length
+     * 分块长度。
+     */
+    void chunk(final MessageType type, final byte[] data, final int offset, final int length);
+
+    /**
+     * 消息体接收完整。
+     * @param type
+     * 消息类型。
+     */
+    void end(final MessageType type);
+
+    /**
+     * 消息体接收中断(解码器重置,如连接断开重连)。
+     * @param type
+     * 消息类型。
+     */
+    void abort(final MessageType type);
+}
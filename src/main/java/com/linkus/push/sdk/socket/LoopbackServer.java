@@ -0,0 +1,237 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.utils.LogWrapper;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内模拟推送服务器(与回环传输配对,用于无网络、无设备的吞吐基准测试及确定性验证)。
+ * <p>
+ * 按协议应答客户端请求:连接请求应答连接成功,订阅/取消订阅/推送应答请求应答成功,心跳请求应答心跳;
+ * 推送消息由 publish 下发至所有会话,客户端的推送应答及其他上行消息按类型计数。
+ * 通过 factory() 获取传输工厂后交由 PushSocket.setTransportFactory 使用。
+ * </p>
+ */
+public final class LoopbackServer {
+    private static final LogWrapper logger = LogWrapper.getLog(LoopbackServer.class);
+
+    private static final String ACK_JSON = "{\"result\":0,\"msg\":\"ok\"}", PINGRESP_JSON = "{\"heartRate\":0,\"afterConnect\":0}";
+
+    private final ServerCodec codec = new ServerCodec();
+    private final CopyOnWriteArrayList<Session> sessions = new CopyOnWriteArrayList<>();
+    private final Map<MessageType, AtomicLong> counters = new EnumMap<>(MessageType.class);
+    private final Object lock = new Object();
+    private volatile boolean accepting = true;
+    private int waiters = 0;
+
+    /**
+     * 构造函数。
+     */
+    public LoopbackServer(){
+        for(MessageType type : MessageType.values()){
+            counters.put(type, new AtomicLong(0));
+        }
+    }
+
+    /**
+     * 获取传输工厂。
+     * @return 回环传输工厂。
+     */
+    public Transport.TransportFactory factory(){
+        return new Transport.TransportFactory() {
+            @Override
+            public Transport create(final Transport.TransportListener listener) {
+                return new LoopbackTransport(LoopbackServer.this, listener);
+            }
+        };
+    }
+
+    /**
+     * 设置是否接受连接(模拟服务器不可用)。
+     * @param accepting
+     * 是否接受连接。
+     */
+    public void setAccepting(final boolean accepting){
+        this.accepting = accepting;
+    }
+
+    /**
+     * 获取当前会话数。
+     * @return 会话数。
+     */
+    public int getSessionCount(){
+        return sessions.size();
+    }
+
+    /**
+     * 下发推送消息至所有会话。
+     * @param json
+     * 推送消息JSON(需包含pushId)。
+     * @return 下发的会话数。
+     */
+    public int publish(final String json){
+        if(json == null || json.length() == 0) throw new IllegalArgumentException("json");
+        final byte[] frame = encode(MessageType.Publish, json);
+        int count = 0;
+        for(Session s : sessions){
+            s.send(frame);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 关闭所有会话(模拟服务器重启,客户端收到连接关闭回调)。
+     */
+    public void closeSessions(){
+        for(Session s : sessions){
+            if(sessions.remove(s)){
+                s.transport.remoteClosed(s);
+            }
+        }
+    }
+
+    /**
+     * 获取已接收的上行消息数。
+     * @param type
+     * 消息类型。
+     * @return 消息数。
+     */
+    public long getReceived(final MessageType type){
+        return counters.get(type).get();
+    }
+
+    /**
+     * 等待已接收的上行消息数达到指定值。
+     * @param type
+     * 消息类型。
+     * @param count
+     * 消息数。
+     * @param timeoutMillis
+     * 超时(毫秒)。
+     * @return 是否达到。
+     * @throws InterruptedException
+     * 等待被中断。
+     */
+    public boolean awaitReceived(final MessageType type, final long count, final long timeoutMillis) throws InterruptedException {
+        final AtomicLong counter = counters.get(type);
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (lock){
+            waiters++;
+            try {
+                long remain;
+                while (counter.get() < count) {
+                    if ((remain = deadline - System.currentTimeMillis()) <= 0) return false;
+                    lock.wait(remain);
+                }
+                return true;
+            }finally {
+                waiters--;
+            }
+        }
+    }
+
+    //接受连接(不接受连接时返回null)
+    Session accept(final LoopbackTransport transport){
+        if(!accepting) return null;
+        final Session s = new Session(transport);
+        sessions.add(s);
+        return s;
+    }
+
+    //编码下行消息帧
+    private byte[] encode(final MessageType type, final String json){
+        final PooledBuffer frame = codec.encode(new FixedHeader(type, type == MessageType.Publish), json);
+        try {
+            final ByteBuffer buf = frame.buffer();
+            final byte[] data = new byte[buf.remaining()];
+            buf.get(data);
+            return data;
+        }finally {
+            frame.release();
+        }
+    }
+
+    //上行消息处理
+    private void handle(final Session s, final MessageType type){
+        counters.get(type).incrementAndGet();
+        synchronized (lock){
+            if(waiters > 0) lock.notifyAll();
+        }
+        switch (type){
+            case Connect:
+                s.send(encode(MessageType.Connack, ACK_JSON));
+                break;
+            case Subscribe:
+                s.send(encode(MessageType.Suback, ACK_JSON));
+                break;
+            case Unsubscribe:
+                s.send(encode(MessageType.Unsuback, ACK_JSON));
+                break;
+            case Pingreq:
+                s.send(encode(MessageType.Pingresp, PINGRESP_JSON));
+                break;
+            case Puback:
+                s.send(encode(MessageType.Pubrel, ACK_JSON));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 服务器会话(对应一个回环连接)。
+     */
+    final class Session {
+        private final LoopbackTransport transport;
+        private final FixedHeaderDecoder headerDecoder = new FixedHeaderDecoder();
+
+        Session(final LoopbackTransport transport){
+            this.transport = transport;
+        }
+
+        /**
+         * 接收客户端消息帧(在传输线程中调用,数据仅在调用期间有效)。
+         * @param data
+         * 数据。
+         * @param offset
+         * 起始位置。
+         * @param length
+         * 数据长度。
+         */
+        void received(final byte[] data, final int offset, final int length){
+            int pos = offset;
+            final int end = offset + length;
+            while (pos < end){
+                if(!headerDecoder.update(data[pos++])) continue;
+                final FixedHeader header = headerDecoder.take();
+                if(end - pos < header.getRemainingLength()){
+                    logger.error("loopback frame incomplete[" + header.getType() + "]!");
+                    return;
+                }
+                pos += header.getRemainingLength();
+                if(header.getType() != null) handle(this, header.getType());
+            }
+        }
+
+        //下发消息帧
+        void send(final byte[] frame){
+            transport.deliver(this, frame);
+        }
+
+        /**
+         * 客户端关闭会话。
+         */
+        void close(){
+            sessions.remove(this);
+        }
+    }
+
+    //下行消息帧编码器
+    private static final class ServerCodec extends Codec {
+    }
+}
@@ -0,0 +1,230 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.utils.LogWrapper;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内回环传输(与 LoopbackServer 配对,不经过网络)。
+ * <p>
+ * 连接、发送、接收回调及定时任务均在单个传输线程中依次执行:
+ * 发送的消息帧直接交由服务器会话处理,服务器下发的消息帧以 received 回调交由 PushSocket 解码。
+ * 服务器地址及端口被忽略。
+ * </p>
+ */
+final class LoopbackTransport implements Transport {
+    private static final LogWrapper logger = LogWrapper.getLog(LoopbackTransport.class);
+
+    private final LoopbackServer server;
+    private final TransportListener listener;
+    private volatile int maxQueueBytes = OutboundBudget.DEF_MAX_BYTES;
+
+    private volatile ScheduledExecutorService executor;
+    private volatile Thread loopThread;
+    private volatile boolean connected = false;
+    private volatile OutboundBudget budget;
+    //当前会话(仅限传输线程访问)
+    private LoopbackServer.Session session;
+
+    /**
+     * 构造函数。
+     * @param server
+     * 回环服务器。
+     * @param listener
+     * 传输监听器。
+     */
+    LoopbackTransport(final LoopbackServer server, final TransportListener listener){
+        if(server == null) throw new IllegalArgumentException("server");
+        if(listener == null) throw new IllegalArgumentException("listener");
+        this.server = server;
+        this.listener = listener;
+    }
+
+    @Override
+    public void start() throws IOException {
+        executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "push-socket-loopback");
+                thread.setDaemon(true);
+                loopThread = thread;
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public void connect(final String host, final int port, final int timeoutMillis) {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                closeSession();
+                budget = new OutboundBudget(maxQueueBytes, OutboundBudget.DEF_BLOCK_MILLIS);
+                final LoopbackServer.Session s = server.accept(LoopbackTransport.this);
+                if(s == null){
+                    budget.close();
+                    listener.closed(new ConnectException("loopback server refused(" + host + ":" + port + ")"));
+                    return;
+                }
+                session = s;
+                connected = true;
+                logger.info("socket connect success!");
+                listener.connected();
+            }
+        });
+    }
+
+    @Override
+    public void disconnect() {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                closeSession();
+            }
+        });
+    }
+
+    @Override
+    public boolean offer(final MessageType type, final PooledBuffer frame) {
+        final OutboundBudget b = budget;
+        if(!connected || b == null){
+            frame.release();
+            return false;
+        }
+        final int size = frame.buffer().remaining();
+        final long enqueueNanos = b.acquire(type, size, Thread.currentThread() != loopThread);
+        if(enqueueNanos < 0){
+            frame.release();
+            return false;
+        }
+        final boolean accepted = execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if(b != budget || session == null){//连接已关闭
+                        b.dropped(size);
+                        return;
+                    }
+                    final ByteBuffer data = frame.buffer();
+                    session.received(data.array(), data.arrayOffset() + data.position(), data.remaining());
+                    b.written(size, enqueueNanos);
+                }finally {
+                    frame.release();
+                }
+                listener.written(type);
+            }
+        });
+        if(!accepted){
+            frame.release();
+            b.dropped(size);
+        }
+        return accepted;
+    }
+
+    @Override
+    public void schedule(final Runnable task, final long delayMillis) {
+        final ScheduledExecutorService e = executor;
+        if(e == null) return;
+        try {
+            e.schedule(task, Math.max(0L, delayMillis), TimeUnit.MILLISECONDS);
+        }catch (RejectedExecutionException ex){
+            logger.warn("schedule task rejected:" + ex.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void setMaxQueueBytes(final int maxQueueBytes) {
+        if(maxQueueBytes <= 0) throw new IllegalArgumentException("maxQueueBytes");
+        this.maxQueueBytes = maxQueueBytes;
+    }
+
+    @Override
+    public QueueMetrics metrics() {
+        final OutboundBudget b = budget;
+        return b == null ? null : b.metrics();
+    }
+
+    /**
+     * 服务器下发消息帧(由服务器会话调用)。
+     * @param s
+     * 服务器会话。
+     * @param frame
+     * 消息帧数据。
+     */
+    void deliver(final LoopbackServer.Session s, final byte[] frame){
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                if(s == session && connected){
+                    listener.received(frame, 0, frame.length);
+                }
+            }
+        });
+    }
+
+    /**
+     * 服务器关闭会话(由服务器会话调用)。
+     * @param s
+     * 服务器会话。
+     */
+    void remoteClosed(final LoopbackServer.Session s){
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                if(s != session) return;
+                session = null;
+                connected = false;
+                budget.close();
+                listener.closed(new EOFException("socket closed by server"));
+            }
+        });
+    }
+
+    //关闭当前会话(不回调 closed)
+    private void closeSession(){
+        connected = false;
+        if(budget != null){
+            budget.close();
+        }
+        final LoopbackServer.Session s = session;
+        session = null;
+        if(s != null){
+            s.close();
+        }
+    }
+
+    //提交任务至传输线程
+    private boolean execute(final Runnable task){
+        final ScheduledExecutorService e = executor;
+        if(e == null) throw new IllegalStateException("loopback transport not started!");
+        try {
+            e.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    }catch (Exception ex){
+                        logger.error("socket loopback task exception:" + ex.getMessage(), ex);
+                    }
+                }
+            });
+            return true;
+        }catch (RejectedExecutionException ex){
+            logger.warn("socket loopback task rejected:" + ex.getMessage());
+            return false;
+        }
+    }
+}
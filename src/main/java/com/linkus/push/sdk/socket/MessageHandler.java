@@ -0,0 +1,31 @@
+package com.linkus.push.sdk.socket;
+
+/**
+ * 消息处理器(解析器+消费者),按消息类型注册到 MessageHandlerRegistry。
+ */
+public interface MessageHandler<T> {
+    /**
+     * 解析消息体(在解码线程调用,消息体数据仅在调用期间有效)。
+     * @param type
+     * 消息类型。
+     * @param format
+     * 消息体格式。
+     * @param payload
+     * 消息体数据(已解压)。
+     * @param offset
+     * 起始位置。
+     * @param length
+     * 消息体长度(0表示无消息体)。
+     * @return 数据模型。
+     */
+    T parse(final MessageType type, final BodyFormat format, final byte[] payload, final int offset, final int length);
+
+    /**
+     * 处理解析后的数据模型。
+     * @param type
+     * 消息类型。
+     * @param model
+     * 数据模型。
+     */
+    void handle(final MessageType type, final T model);
+}
@@ -0,0 +1,80 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.utils.LogWrapper;
+
+/**
+ * 消息处理器注册表(按消息类型枚举值下标查找,分发过程无分配)。
+ * <p>
+ * 注册/注销时复制数组替换,分发时读取volatile数组,可在解码过程中安全地变更处理器。
+ * </p>
+ */
+public final class MessageHandlerRegistry {
+    private static final LogWrapper logger = LogWrapper.getLog(MessageHandlerRegistry.class);
+
+    //消息类型占4位
+    private static final int MAX_TYPES = 16;
+
+    private volatile MessageHandler<?>[] handlers = new MessageHandler<?>[MAX_TYPES];
+
+    /**
+     * 注册消息处理器(替换已有的处理器)。
+     * @param type
+     * 消息类型。
+     * @param handler
+     * 消息处理器。
+     * @return 当前对象。
+     */
+    public synchronized MessageHandlerRegistry register(final MessageType type, final MessageHandler<?> handler){
+        if(type == null) throw new IllegalArgumentException("type");
+        if(handler == null) throw new IllegalArgumentException("handler");
+        final MessageHandler<?>[] copy = handlers.clone();
+        copy[type.getVal()] = handler;
+        handlers = copy;
+        return this;
+    }
+
+    /**
+     * 注销消息处理器。
+     * @param type
+     * 消息类型。
+     */
+    public synchronized void unregister(final MessageType type){
+        if(type == null) return;
+        final MessageHandler<?>[] copy = handlers.clone();
+        copy[type.getVal()] = null;
+        handlers = copy;
+    }
+
+    /**
+     * 获取消息处理器。
+     * @param type
+     * 消息类型。
+     * @return 消息处理器,未注册时返回null。
+     */
+    public MessageHandler<?> get(final MessageType type){
+        return type == null ? null : handlers[type.getVal()];
+    }
+
+    /**
+     * 分发消息(解析后交由处理器处理)。
+     * @param type
+     * 消息类型。
+     * @param format
+     * 消息体格式。
+     * @param payload
+     * 消息体数据。
+     * @param offset
+     * 起始位置。
+     * @param length
+     * 消息体长度。
+     */
+    @SuppressWarnings("unchecked")
+    void dispatch(final MessageType type, final BodyFormat format, final byte[] payload, final int offset, final int length){
+        final MessageHandler<Object> handler = (MessageHandler<Object>) handlers[type.getVal()];
+        if(handler == null){
+            logger.warn("消息类型[" + type + "]未注册处理器,忽略!");
+            return;
+        }
+        handler.handle(type, handler.parse(type, format, payload, offset, length));
+    }
+}
@@ -0,0 +1,64 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.models.AckModel;
+import com.linkus.push.sdk.models.PingResponseModel;
+import com.linkus.push.sdk.models.PublishModel;
+import com.linkus.push.sdk.utils.LogWrapper;
+
+/**
+ * 协议内置消息的解析器(仅需实现 handle 即可注册)。
+ */
+public final class MessageHandlers {
+    private static final LogWrapper logger = LogWrapper.getLog(MessageHandlers.class);
+
+    private MessageHandlers(){}
+
+    /**
+     * 应答消息处理器(Connack/Pubrel/Suback/Unsuback)。
+     */
+    public static abstract class AckHandler implements MessageHandler<AckModel> {
+        @Override
+        public AckModel parse(final MessageType type, final BodyFormat format, final byte[] payload, final int offset, final int length) {
+            if(length == 0) return null;
+            if(format == BodyFormat.Binary){
+                logger.info("decode[" + type + "](binary)=>" + length + " bytes");
+                return new AckModel(BinaryCodec.readObject(payload, offset, length));
+            }
+            final String json = new String(payload, offset, length, Codec.UTF8);
+            logger.info("decode[" + type + "]=>\n" + json);
+            return new AckModel(json);
+        }
+    }
+
+    /**
+     * 推送消息处理器(Publish,JSON消息体延迟解析)。
+     */
+    public static abstract class PublishHandler implements MessageHandler<PublishModel> {
+        @Override
+        public PublishModel parse(final MessageType type, final BodyFormat format, final byte[] payload, final int offset, final int length) {
+            if(length == 0) return null;
+            logger.info("decode[" + type + "]" + (format == BodyFormat.Binary ? "(binary)" : "") + "=>" + length + " bytes");
+            if(format == BodyFormat.Binary){
+                return new PublishModel(BinaryCodec.readObject(payload, offset, length));
+            }
+            return new PublishModel(payload, offset, length);
+        }
+    }
+
+    /**
+     * 心跳应答处理器(Pingresp)。
+     */
+    public static abstract class PingResponseHandler implements MessageHandler<PingResponseModel> {
+        @Override
+        public PingResponseModel parse(final MessageType type, final BodyFormat format, final byte[] payload, final int offset, final int length) {
+            if(length == 0) return null;
+            if(format == BodyFormat.Binary){
+                logger.info("decode[" + type + "](binary)=>" + length + " bytes");
+                return PingResponseModel.parse(BinaryCodec.readObject(payload, offset, length));
+            }
+            final String json = new String(payload, offset, length, Codec.UTF8);
+            logger.info("decode[" + type + "]=>\n" + json);
+            return PingResponseModel.parseJson(json);
+        }
+    }
+}
@@ -59,7 +59,7 @@ public enum MessageType {
     Disconnect(14);
 
 
-    private int val;
+    private final int val;
     /**
      * 构造函数。
      * @param val
@@ -85,9 +85,15 @@ public enum MessageType {
      * 枚举对象。
      */
     public static MessageType parse(final int val){
+        return (val >= 0 && val < LOOKUP.length) ? LOOKUP[val] : null;
+    }
+
+    //枚举值下标查找表(消息类型占4位)
+    private static final MessageType[] LOOKUP = new MessageType[16];
+
+    static {
         for(MessageType type : values()){
-            if(type.val == val) return type;
+            LOOKUP[type.val] = type;
         }
-        return null;
     }
 }
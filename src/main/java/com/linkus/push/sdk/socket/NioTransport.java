@@ -0,0 +1,679 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.utils.LogWrapper;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 非阻塞TCP传输(SocketChannel + Selector,单事件循环线程)。
+ * <p>
+ * 连接、读取、写就绪及定时任务均在同一事件循环线程中处理:
+ * 读取的数据直接交由监听器解码;消息帧入队后在合并窗口内等待后续消息帧,
+ * 窗口到期、累计字节达到批量上限或控制消息到达时以一次聚集写入发送,socket发送缓冲区满时等待写就绪继续发送。
+ * 事件循环线程在首次连接时启动,断开连接后保持空闲等待下次连接;
+ * 单次循环中的异常关闭当前连接后继续循环,Selector失效时重新打开,事件循环线程不因异常退出。
+ * </p>
+ */
+final class NioTransport implements Transport, Runnable {
+    private static final LogWrapper logger = LogWrapper.getLog(NioTransport.class);
+
+    private static final int READ_BUF_SIZE = 8 * 1024, MAX_READS_PER_EVENT = 16;
+    //重新打开Selector失败后的重试间隔(毫秒)
+    private static final long REOPEN_DELAY_MILLIS = 1000;
+
+    private final TransportListener listener;
+    private final int windowMillis, batchBytes;
+    private volatile int maxQueueBytes;
+
+    //跨线程提交的任务及待发送消息帧
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Pending> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean(false);
+    private volatile boolean connected = false;
+    //当前连接的发送队列字节预算
+    private volatile OutboundBudget budget;
+    private volatile Thread loopThread;
+
+    //以下仅限事件循环线程访问
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+    private final LinkedList<Pending> writing = new LinkedList<>();
+    //Selector(失效时由事件循环线程重新打开,其他线程仅调用wakeup)
+    private volatile Selector selector;
+    private SocketChannel channel;
+    private SelectionKey key;
+    private PooledBuffer readBuf;
+    private int generation = 0, writingBytes = 0;
+    private long firstPendingTime = 0;
+    private boolean urgent = false;
+    private long timerSeq = 0;
+    //连接中的服务器、待尝试的地址及进行中的连接尝试
+    private String connectHost;
+    private int connectPort, connectIndex;
+    private List<InetAddress> connectAddresses;
+    private long connectDeadline;
+    private final List<Attempt> attempts = new ArrayList<>();
+    private IOException connectError;
+
+    /**
+     * 构造函数。
+     * @param windowMillis
+     * 合并窗口(毫秒),0表示不等待。
+     * @param batchBytes
+     * 累计字节达到该值时立即发送。
+     * @param maxQueueBytes
+     * 发送队列排队字节上限(超过时入队线程阻塞)。
+     * @param listener
+     * 传输监听器(回调均在事件循环线程中执行)。
+     */
+    NioTransport(final int windowMillis, final int batchBytes, final int maxQueueBytes, final TransportListener listener){
+        if(windowMillis < 0) throw new IllegalArgumentException("windowMillis");
+        if(batchBytes <= 0) throw new IllegalArgumentException("batchBytes");
+        if(maxQueueBytes <= 0) throw new IllegalArgumentException("maxQueueBytes");
+        if(listener == null) throw new IllegalArgumentException("listener");
+        this.windowMillis = windowMillis;
+        this.batchBytes = batchBytes;
+        this.maxQueueBytes = maxQueueBytes;
+        this.listener = listener;
+    }
+
+    /**
+     * 启动事件循环线程。
+     * @throws IOException
+     * 打开Selector失败。
+     */
+    @Override
+    public void start() throws IOException {
+        this.selector = Selector.open();
+        final Thread thread = new Thread(this, "push-socket-loop");
+        thread.setDaemon(true);
+        loopThread = thread;
+        thread.start();
+    }
+
+    /**
+     * 连接服务器(关闭已有连接)。
+     * <p>
+     * 按排序后的解析地址错开启动连接尝试(上次连接成功的地址优先,同 SocketConnector):
+     * 前一尝试失败或错开间隔到期即启动下一个,最先连接成功者胜出,其余尝试关闭。
+     * </p>
+     * @param host
+     * 服务器地址。
+     * @param port
+     * 服务器端口。
+     * @param timeoutMillis
+     * 连接总超时(毫秒)。
+     */
+    @Override
+    public void connect(final String host, final int port, final int timeoutMillis){
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                doConnect(host, port, timeoutMillis);
+            }
+        });
+    }
+
+    /**
+     * 断开连接(未发送的消息帧将被丢弃,不回调 closed)。
+     */
+    @Override
+    public void disconnect(){
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                closeChannel(null, false);
+            }
+        });
+    }
+
+    /**
+     * 设置发送队列排队字节上限(下次连接时生效)。
+     * @param maxQueueBytes
+     * 排队字节上限。
+     */
+    @Override
+    public void setMaxQueueBytes(final int maxQueueBytes){
+        if(maxQueueBytes <= 0) throw new IllegalArgumentException("maxQueueBytes");
+        this.maxQueueBytes = maxQueueBytes;
+    }
+
+    /**
+     * 是否已连接。
+     * @return 是否已连接。
+     */
+    @Override
+    public boolean isConnected(){
+        return connected;
+    }
+
+    /**
+     * 获取当前连接的发送队列指标。
+     * @return 队列指标,未连接过时返回null。
+     */
+    @Override
+    public QueueMetrics metrics(){
+        final OutboundBudget b = budget;
+        return b == null ? null : b.metrics();
+    }
+
+    /**
+     * 消息帧入队(排队字节数超过上限时阻塞,事件循环线程自身入队时不阻塞)。
+     * @param type
+     * 消息类型。
+     * @param frame
+     * 消息帧(入队后由传输负责release)。
+     * @return 是否入队成功(未连接或背压等待超时时释放消息帧并返回false)。
+     */
+    @Override
+    public boolean offer(final MessageType type, final PooledBuffer frame){
+        final OutboundBudget b = budget;
+        if(!connected || b == null){
+            frame.release();
+            return false;
+        }
+        final int size = frame.buffer().remaining();
+        final long enqueueNanos = b.acquire(type, size, Thread.currentThread() != loopThread);
+        if(enqueueNanos < 0){
+            frame.release();
+            return false;
+        }
+        outbound.add(new Pending(type, frame, size, enqueueNanos, b));
+        wakeup();
+        return true;
+    }
+
+    /**
+     * 添加定时任务(在事件循环线程中执行)。
+     * @param task
+     * 任务。
+     * @param delayMillis
+     * 延迟(毫秒)。
+     */
+    @Override
+    public void schedule(final Runnable task, final long delayMillis){
+        final long deadline = System.currentTimeMillis() + Math.max(0L, delayMillis);
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                timers.add(new Timer(deadline, timerSeq++, task));
+            }
+        });
+    }
+
+    //提交任务至事件循环线程
+    private void execute(final Runnable task){
+        tasks.add(task);
+        wakeup();
+    }
+
+    //唤醒事件循环
+    private void wakeup(){
+        if(wakeupPending.compareAndSet(false, true)){
+            selector.wakeup();
+        }
+    }
+
+    @Override
+    public void run() {
+        readBuf = BufferPool.shared().acquire(READ_BUF_SIZE);
+        try {
+            while (true) {
+                try {
+                    final long timeout = nextTimeout();
+                    if (timeout < 0) {
+                        selector.select();
+                    } else if (timeout == 0) {
+                        selector.selectNow();
+                    } else {
+                        selector.select(timeout);
+                    }
+                } catch (Exception e) {//Selector失效,关闭连接后重新打开
+                    logger.error("socket selector exception:" + e.getMessage(), e);
+                    closeOnError(e);
+                    reopenSelector();
+                    continue;
+                }
+                try {
+                    wakeupPending.set(false);
+                    runTasks();
+                    processKeys();
+                    runTimers();
+                    flush();
+                } catch (Exception e) {//关闭当前连接,继续事件循环
+                    logger.error("socket loop exception:" + e.getMessage(), e);
+                    closeOnError(e);
+                }
+            }
+        } finally {
+            readBuf.release();
+        }
+    }
+
+    //异常时关闭连接(监听器回调异常不中断事件循环)
+    private void closeOnError(final Exception cause){
+        try {
+            closeChannel(cause, true);
+        }catch (Exception e){
+            logger.error("socket close exception:" + e.getMessage(), e);
+        }
+    }
+
+    //重新打开Selector(失败时等待后重试)
+    private void reopenSelector(){
+        try {
+            selector.close();
+        }catch (IOException e){
+            logger.warn("close selector exception:" + e.getMessage());
+        }
+        while (true){
+            try {
+                selector = Selector.open();
+                return;
+            }catch (IOException e){
+                logger.error("open selector exception:" + e.getMessage(), e);
+                try {
+                    Thread.sleep(REOPEN_DELAY_MILLIS);
+                }catch (InterruptedException ex){//事件循环不响应中断,继续重试
+                    logger.warn("reopen selector interrupted!");
+                }
+            }
+        }
+    }
+
+    //计算select等待时长(-1表示无限等待)
+    private long nextTimeout(){
+        if(!tasks.isEmpty() || !outbound.isEmpty()) return 0;
+        long deadline = Long.MAX_VALUE;
+        if(!timers.isEmpty()){
+            deadline = timers.peek().deadline;
+        }
+        if(!writing.isEmpty() && (key == null || (key.interestOps() & SelectionKey.OP_WRITE) == 0)){
+            deadline = Math.min(deadline, urgent || writingBytes >= batchBytes ? 0 : firstPendingTime + windowMillis);
+        }
+        if(deadline == Long.MAX_VALUE) return -1;
+        return Math.max(0L, deadline - System.currentTimeMillis());
+    }
+
+    //执行提交的任务
+    private void runTasks(){
+        Runnable task;
+        while ((task = tasks.poll()) != null){
+            try {
+                task.run();
+            }catch (Exception e){
+                logger.error("socket loop task exception:" + e.getMessage(), e);
+            }
+        }
+    }
+
+    //执行到期的定时任务
+    private void runTimers(){
+        final long now = System.currentTimeMillis();
+        while (!timers.isEmpty() && timers.peek().deadline <= now){
+            try {
+                timers.poll().task.run();
+            }catch (Exception e){
+                logger.error("socket loop timer exception:" + e.getMessage(), e);
+            }
+        }
+    }
+
+    //处理就绪事件
+    private void processKeys(){
+        final Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()){
+            final SelectionKey k = it.next();
+            it.remove();
+            if(!k.isValid()) continue;
+            try {
+                if (k.attachment() instanceof Attempt) {//连接尝试
+                    if (k.isConnectable()) finishConnect((Attempt) k.attachment());
+                    continue;
+                }
+                if (k != key) continue;
+                if (k.isReadable()) {
+                    read();
+                }
+                if (k.isValid() && k.isWritable()) {
+                    write();
+                }
+            }catch (IOException e){
+                logger.error("socket io exception:" + e.getMessage(), e);
+                closeChannel(e, true);
+            }catch (RuntimeException e){
+                logger.error("socket event exception:" + e.getMessage(), e);
+            }
+        }
+    }
+
+    //建立连接
+    private void doConnect(final String host, final int port, final int timeoutMillis){
+        closeChannel(null, false);
+        budget = new OutboundBudget(maxQueueBytes, OutboundBudget.DEF_BLOCK_MILLIS);
+        connectHost = host;
+        connectPort = port;
+        connectIndex = 0;
+        connectError = null;
+        connectDeadline = System.currentTimeMillis() + timeoutMillis;
+        try {
+            connectAddresses = SocketConnector.resolve(host);
+            logger.debug("socket server(" + host + "=>" + connectAddresses + ")...");
+        }catch (IOException e){
+            logger.error("socket connect exception:" + e.getMessage(), e);
+            SocketConnector.failed(host);
+            budget.close();
+            listener.closed(e);
+            return;
+        }
+        //连接总超时
+        final int gen = generation;
+        timers.add(new Timer(connectDeadline, timerSeq++, new Runnable() {
+            @Override
+            public void run() {
+                if(gen == generation && !connected && !attempts.isEmpty()){
+                    connectFailed(new SocketTimeoutException("connect timeout[" + timeoutMillis + " ms]"));
+                }
+            }
+        }));
+        startAttempt();
+    }
+
+    //启动下一个地址的连接尝试(前一尝试失败或错开间隔到期时调用),无可尝试的地址且无进行中的尝试时连接失败
+    private void startAttempt(){
+        while (connectIndex < connectAddresses.size() && System.currentTimeMillis() < connectDeadline){
+            final int index = connectIndex++;
+            final Attempt attempt = new Attempt(connectAddresses.get(index), index);
+            try {
+                attempt.channel = SocketChannel.open();
+                attempt.channel.configureBlocking(false);
+                attempt.channel.socket().setTcpNoDelay(true);
+                final boolean done = attempt.channel.connect(new InetSocketAddress(attempt.address, connectPort));
+                attempt.key = attempt.channel.register(selector, SelectionKey.OP_CONNECT, attempt);
+                attempts.add(attempt);
+                if(done){
+                    connectWon(attempt);
+                    return;
+                }
+            }catch (IOException e){
+                logger.warn("socket connect[" + attempt.address.getHostAddress() + "] fail:" + e.getMessage());
+                closeAttempt(attempt);
+                connectError = e;
+                continue;
+            }
+            final int gen = generation;
+            final long now = System.currentTimeMillis();
+            final long timeout = Math.min(SocketConnector.DEF_ATTEMPT_TIMEOUT_MILLIS, connectDeadline - now);
+            //单次尝试超时
+            timers.add(new Timer(now + timeout, timerSeq++, new Runnable() {
+                @Override
+                public void run() {
+                    if(gen == generation && !connected && attempts.contains(attempt)){
+                        attemptFailed(attempt, new SocketTimeoutException("connect timeout[" + timeout + " ms]"));
+                    }
+                }
+            }));
+            //错开间隔到期且未启动后续尝试时,启动下一个地址的尝试
+            timers.add(new Timer(now + SocketConnector.DEF_ATTEMPT_DELAY_MILLIS, timerSeq++, new Runnable() {
+                @Override
+                public void run() {
+                    if(gen == generation && !connected && connectIndex == index + 1){
+                        startAttempt();
+                    }
+                }
+            }));
+            return;
+        }
+        if(attempts.isEmpty()){
+            connectFailed(connectError != null ? connectError : new IOException("socket connect fail(" + connectHost + ")!"));
+        }
+    }
+
+    //连接尝试失败(最近启动的尝试失败时立即启动下一个)
+    private void attemptFailed(final Attempt attempt, final IOException e){
+        logger.warn("socket connect[" + attempt.address.getHostAddress() + "] fail:" + e.getMessage());
+        attempts.remove(attempt);
+        closeAttempt(attempt);
+        connectError = e;
+        if(connectIndex == attempt.index + 1 || attempts.isEmpty()){
+            startAttempt();
+        }
+    }
+
+    //全部地址连接失败或超时
+    private void connectFailed(final IOException e){
+        logger.error("socket connect exception:" + e.getMessage(), e);
+        SocketConnector.failed(connectHost);
+        closeChannel(null, false);
+        listener.closed(e);
+    }
+
+    //连接就绪
+    private void finishConnect(final Attempt attempt){
+        try {
+            if (!attempt.channel.finishConnect()) return;
+        }catch (IOException e){
+            attemptFailed(attempt, e);
+            return;
+        }
+        connectWon(attempt);
+    }
+
+    //最先连接成功的尝试胜出,关闭其余尝试
+    private void connectWon(final Attempt winner){
+        attempts.remove(winner);
+        closeAttempts();
+        channel = winner.channel;
+        key = winner.key;
+        key.attach(null);
+        key.interestOps(SelectionKey.OP_READ);
+        connected = true;
+        SocketConnector.succeeded(connectHost, winner.address);
+        logger.info("socket connect success!");
+        listener.connected();
+    }
+
+    //关闭连接尝试
+    private static void closeAttempt(final Attempt attempt){
+        if(attempt.key != null){
+            attempt.key.cancel();
+        }
+        if(attempt.channel != null){
+            try {
+                attempt.channel.close();
+            }catch (IOException e){
+                logger.warn("close channel exception:" + e.getMessage());
+            }
+        }
+    }
+
+    //关闭全部进行中的连接尝试
+    private void closeAttempts(){
+        for(Attempt attempt : attempts){
+            closeAttempt(attempt);
+        }
+        attempts.clear();
+    }
+
+    //读取数据
+    private void read() throws IOException {
+        final ByteBuffer buf = readBuf.buffer();
+        final byte[] data = buf.array();
+        for(int i = 0; i < MAX_READS_PER_EVENT && channel != null; i++){
+            buf.clear();
+            final int count = channel.read(buf);
+            if(count < 0){
+                closeChannel(new EOFException("socket closed by server"), true);
+                return;
+            }
+            if(count == 0) return;
+            listener.received(data, buf.arrayOffset(), count);
+            if(count < buf.capacity()) return;
+        }
+    }
+
+    //取出待发送消息帧,满足条件时发送
+    private void flush() throws IOException {
+        Pending p;
+        while ((p = outbound.poll()) != null){
+            if(!connected){//连接已关闭
+                p.frame.release();
+                p.budget.dropped(p.size);
+                continue;
+            }
+            if(writing.isEmpty()){
+                firstPendingTime = System.currentTimeMillis();
+            }
+            writing.add(p);
+            writingBytes += p.frame.buffer().remaining();
+            if(isUrgent(p.type)) urgent = true;
+        }
+        if(writing.isEmpty() || (key.interestOps() & SelectionKey.OP_WRITE) != 0) return;
+        if(urgent || writingBytes >= batchBytes || System.currentTimeMillis() >= firstPendingTime + windowMillis){
+            try {
+                write();
+            }catch (IOException e){
+                logger.error("send data exception:" + e.getMessage(), e);
+                closeChannel(e, true);
+            }
+        }
+    }
+
+    //聚集写入(发送缓冲区满时等待写就绪)
+    private void write() throws IOException {
+        final int size = writing.size();
+        if(size == 0){
+            key.interestOps(SelectionKey.OP_READ);
+            return;
+        }
+        final ByteBuffer[] buffers = new ByteBuffer[size];
+        int i = 0;
+        for(Pending p : writing){
+            buffers[i++] = p.frame.buffer();
+        }
+        channel.write(buffers);
+        //通知已完整发送的消息帧
+        final List<MessageType> written = new ArrayList<>(size);
+        while (!writing.isEmpty() && !writing.getFirst().frame.buffer().hasRemaining()){
+            final Pending done = writing.removeFirst();
+            done.frame.release();
+            done.budget.written(done.size, done.enqueueNanos);
+            written.add(done.type);
+        }
+        writingBytes = 0;
+        urgent = false;
+        for(Pending p : writing){
+            writingBytes += p.frame.buffer().remaining();
+        }
+        key.interestOps(writing.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        logger.info("send data successful![frames:" + written.size() + "]");
+        for(MessageType type : written){
+            listener.written(type);
+        }
+    }
+
+    //关闭连接(notify为true时回调 closed)
+    private void closeChannel(final Exception cause, final boolean notify){
+        final boolean had = channel != null || !attempts.isEmpty();
+        connected = false;
+        generation++;
+        closeAttempts();
+        if(key != null){
+            key.cancel();
+            key = null;
+        }
+        if(channel != null){
+            try {
+                channel.close();
+            }catch (IOException e){
+                logger.warn("close channel exception:" + e.getMessage());
+            }
+            channel = null;
+        }
+        for(Pending p : writing){
+            p.frame.release();
+            p.budget.dropped(p.size);
+        }
+        writing.clear();
+        writingBytes = 0;
+        urgent = false;
+        Pending p;
+        while ((p = outbound.poll()) != null){
+            p.frame.release();
+            p.budget.dropped(p.size);
+        }
+        if(budget != null){
+            budget.close();
+        }
+        if(had && notify){
+            listener.closed(cause);
+        }
+    }
+
+    //是否为需立即发送的控制消息
+    private static boolean isUrgent(final MessageType type){
+        return type == MessageType.Connect || type == MessageType.Pingreq || type == MessageType.Disconnect;
+    }
+
+    //连接尝试
+    private static final class Attempt {
+        final InetAddress address;
+        final int index;
+        SocketChannel channel;
+        SelectionKey key;
+
+        Attempt(final InetAddress address, final int index){
+            this.address = address;
+            this.index = index;
+        }
+    }
+
+    //待发送消息帧
+    private static final class Pending {
+        final MessageType type;
+        final PooledBuffer frame;
+        final int size;
+        final long enqueueNanos;
+        final OutboundBudget budget;
+
+        Pending(final MessageType type, final PooledBuffer frame, final int size, final long enqueueNanos, final OutboundBudget budget){
+            this.type = type;
+            this.frame = frame;
+            this.size = size;
+            this.enqueueNanos = enqueueNanos;
+            this.budget = budget;
+        }
+    }
+
+    //定时任务(到期时间相同时按添加顺序执行)
+    private static final class Timer implements Comparable<Timer> {
+        final long deadline, seq;
+        final Runnable task;
+
+        Timer(final long deadline, final long seq, final Runnable task){
+            this.deadline = deadline;
+            this.seq = seq;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(final Timer o) {
+            if(deadline != o.deadline) return deadline < o.deadline ? -1 : 1;
+            return seq < o.seq ? -1 : (seq == o.seq ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.linkus.push.sdk.socket;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 发送队列字节预算(背压)及指标。
+ * <p>
+ * 多个生产者入队前申请字节预算,排队字节数超过上限时阻塞等待写线程发送,超时后拒绝入队;
+ * 连接、心跳、断开连接等控制消息不受上限限制。写线程发送或丢弃消息帧后归还预算并记录入队至写入socket的延迟。
+ * </p>
+ */
+final class OutboundBudget {
+    /**
+     * 默认排队字节上限。
+     */
+    static final int DEF_MAX_BYTES = 256 * 1024;
+    /**
+     * 默认背压最长阻塞时长(毫秒)。
+     */
+    static final int DEF_BLOCK_MILLIS = 3000;
+
+    private final int maxBytes;
+    private final long blockNanos;
+    private final Object lock = new Object();
+
+    private final AtomicInteger bytes = new AtomicInteger(0), depth = new AtomicInteger(0);
+    private final AtomicInteger maxDepth = new AtomicInteger(0);
+    private final AtomicLong enqueued = new AtomicLong(0), dropped = new AtomicLong(0), blockedNanos = new AtomicLong(0);
+    //延迟指标(仅写线程写入)
+    private volatile long written = 0, totalLatencyNanos = 0, maxLatencyNanos = 0;
+
+    private volatile boolean closed = false;
+    private int waiters = 0;
+
+    /**
+     * 构造函数。
+     * @param maxBytes
+     * 排队字节上限。
+     * @param blockMillis
+     * 背压最长阻塞时长(毫秒)。
+     */
+    OutboundBudget(final int maxBytes, final int blockMillis){
+        if(maxBytes <= 0) throw new IllegalArgumentException("maxBytes");
+        if(blockMillis < 0) throw new IllegalArgumentException("blockMillis");
+        this.maxBytes = maxBytes;
+        this.blockNanos = blockMillis * 1000000L;
+    }
+
+    /**
+     * 申请入队预算(超过上限时阻塞)。
+     * @param type
+     * 消息类型。
+     * @param size
+     * 消息帧字节数。
+     * @param block
+     * 超过上限时是否阻塞等待(否则直接拒绝,用于写线程自身入队)。
+     * @return 入队时间(纳秒),已关闭或超过上限返回-1(计入丢弃数)。
+     */
+    long acquire(final MessageType type, final int size, final boolean block){
+        long start = 0;
+        try {
+            while (true) {
+                if (closed) {
+                    dropped.incrementAndGet();
+                    return -1;
+                }
+                final int cur = bytes.get();
+                if (cur == 0 || cur + size <= maxBytes || isControl(type)) {//预留预算
+                    if (bytes.compareAndSet(cur, cur + size)) break;
+                    continue;
+                }
+                if (!block) {
+                    dropped.incrementAndGet();
+                    return -1;
+                }
+                if (start == 0) start = System.nanoTime();
+                final long remain = blockNanos - (System.nanoTime() - start);
+                if (remain <= 0) {//等待超时
+                    dropped.incrementAndGet();
+                    return -1;
+                }
+                synchronized (lock) {
+                    waiters++;
+                    try {
+                        final int now = bytes.get();
+                        if (!closed && now > 0 && now + size > maxBytes) {
+                            lock.wait(remain / 1000000L, (int) (remain % 1000000L));
+                        }
+                    } finally {
+                        waiters--;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+            return -1;
+        } finally {
+            if (start != 0) blockedNanos.addAndGet(System.nanoTime() - start);
+        }
+        final int d = depth.incrementAndGet();
+        int max;
+        while (d > (max = maxDepth.get()) && !maxDepth.compareAndSet(max, d)){
+            //重试
+        }
+        enqueued.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * 消息帧已写入socket,归还预算并记录延迟(仅限写线程)。
+     * @param size
+     * 消息帧字节数。
+     * @param enqueueNanos
+     * 入队时间(纳秒)。
+     */
+    void written(final int size, final long enqueueNanos){
+        final long latency = System.nanoTime() - enqueueNanos;
+        written++;
+        totalLatencyNanos += latency;
+        if(latency > maxLatencyNanos) maxLatencyNanos = latency;
+        release(size);
+    }
+
+    /**
+     * 消息帧未发送即丢弃,归还预算。
+     * @param size
+     * 消息帧字节数。
+     */
+    void dropped(final int size){
+        dropped.incrementAndGet();
+        release(size);
+    }
+
+    //归还预算并唤醒等待的生产者
+    private void release(final int size){
+        depth.decrementAndGet();
+        bytes.addAndGet(-size);
+        synchronized (lock){
+            if(waiters > 0) lock.notifyAll();
+        }
+    }
+
+    /**
+     * 关闭(唤醒所有等待的生产者)。
+     */
+    void close(){
+        closed = true;
+        synchronized (lock){
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * 获取当前排队字节数。
+     * @return 排队字节数。
+     */
+    int getBytes(){
+        return bytes.get();
+    }
+
+    /**
+     * 获取指标快照。
+     * @return 队列指标。
+     */
+    QueueMetrics metrics(){
+        final long count = written;
+        return new QueueMetrics(maxBytes, Math.max(0, depth.get()), maxDepth.get(), enqueued.get(), dropped.get(),
+                blockedNanos.get() / 1000000L, count == 0 ? 0 : totalLatencyNanos / count / 1000L, maxLatencyNanos / 1000L);
+    }
+
+    //是否为不受上限限制的控制消息
+    private static boolean isControl(final MessageType type){
+        return type == MessageType.Connect || type == MessageType.Pingreq || type == MessageType.Disconnect;
+    }
+}
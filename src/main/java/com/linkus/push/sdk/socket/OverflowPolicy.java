@@ -0,0 +1,19 @@
+package com.linkus.push.sdk.socket;
+
+/**
+ * 队列溢出策略枚举。
+ */
+public enum OverflowPolicy {
+    /**
+     * 阻塞入队线程直至队列有空位(默认,由TCP流控反压服务器)。
+     */
+    Block,
+    /**
+     * 丢弃最早入队的消息(未应答的推送消息由服务器重发)。
+     */
+    DropOldest,
+    /**
+     * 断开连接(重连后由服务器重发未应答的消息)。
+     */
+    Disconnect
+}
@@ -0,0 +1,233 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.data.IAccessConfig;
+import com.linkus.push.sdk.utils.LogWrapper;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * 标签命令队列(合并同类命令,持久化,收到应答后移除)。
+ * <p>
+ * 标签命令只保留最后一次(绑定标签或解除绑定),每次变更写入临时文件后重命名替换,进程重启后恢复。
+ * 连接应答后发送,命令保留至收到订阅/取消订阅应答;连接断开时未应答的命令在下次连接应答后重新发送。
+ * </p>
+ */
+final class PendingCommands {
+    private static final LogWrapper logger = LogWrapper.getLog(PendingCommands.class);
+
+    /**
+     * 队列文件名。
+     */
+    static final String FILE_NAME = "push-commands.dat";
+
+    //文件版本(版本1含已移除的断开命令)
+    private static final int VERSION = 2, VERSION_1 = 1;
+    //标签命令
+    private static final int TAG_NONE = 0, TAG_SUBSCRIBE = 1, TAG_UNSUBSCRIBE = 2;
+
+    private final File file;
+    private int tagCommand = TAG_NONE;
+    private String tag;
+    //标签命令变更序号及当前连接已发送未应答的命令序号(按发送顺序)
+    private long tagSeq = 0;
+    private final ArrayDeque<Long> sent = new ArrayDeque<>();
+
+    /**
+     * 构造函数(加载已持久化的命令)。
+     * @param file
+     * 队列文件(null表示不持久化)。
+     */
+    PendingCommands(final File file){
+        this.file = file;
+        load();
+    }
+
+    /**
+     * 绑定标签(替换未应答的标签命令)。
+     * @param tag
+     * 用户标签。
+     */
+    synchronized void subscribe(final String tag){
+        if(tag == null || tag.length() == 0) throw new IllegalArgumentException("tag");
+        this.tagCommand = TAG_SUBSCRIBE;
+        this.tag = tag;
+        this.tagSeq++;
+        save();
+    }
+
+    /**
+     * 解除标签绑定(替换未应答的标签命令)。
+     */
+    synchronized void unsubscribe(){
+        this.tagCommand = TAG_UNSUBSCRIBE;
+        this.tag = null;
+        this.tagSeq++;
+        save();
+    }
+
+    /**
+     * 是否有未发送的命令。
+     * @return 是否有命令。
+     */
+    synchronized boolean isEmpty(){
+        return !hasTag();
+    }
+
+    //是否有未发送的标签命令(当前连接已发送的最新命令不再重复发送)
+    private boolean hasTag(){
+        return tagCommand != TAG_NONE && (sent.isEmpty() || sent.peekLast() != tagSeq);
+    }
+
+    /**
+     * 编码发送未发送的标签命令(命令保留至收到应答)。
+     * @param access
+     * 接入配置。
+     * @param encoder
+     * 消息编码器。
+     * @param handler
+     * 编码处理监听器。
+     * @return 发送的命令数。
+     */
+    int flush(final IAccessConfig access, final CodecEncoder encoder, final CodecEncoder.CodecEncoderListener handler){
+        if(access == null) throw new IllegalArgumentException("access");
+        final int command;
+        final String value;
+        synchronized (this){
+            if(!hasTag()) return 0;
+            command = tagCommand;
+            value = tag;
+            sent.add(tagSeq);
+        }
+        if(command == TAG_SUBSCRIBE){
+            encoder.encodeSubscribe(new TagAccess(access, value), handler);
+        }else {
+            encoder.encodeUnsubscribe(access, handler);
+        }
+        return 1;
+    }
+
+    /**
+     * 收到订阅/取消订阅应答(最早发送的命令已完成,未被新命令替换时移除)。
+     */
+    synchronized void acked(){
+        final Long seq = sent.poll();
+        if(seq == null || seq != tagSeq || tagCommand == TAG_NONE) return;
+        tagCommand = TAG_NONE;
+        tag = null;
+        save();
+    }
+
+    /**
+     * 最早发送的命令应答超时(命令保留,下次连接应答后重新发送)。
+     */
+    synchronized void failed(){
+        sent.poll();
+    }
+
+    /**
+     * 连接关闭(未应答的命令在下次连接应答后重新发送)。
+     */
+    synchronized void closed(){
+        sent.clear();
+    }
+
+    //加载命令
+    private void load(){
+        if(file == null || !file.exists()) return;
+        try {
+            final DataInputStream in = new DataInputStream(new FileInputStream(file));
+            try {
+                final int version = in.readInt();
+                if(version != VERSION && version != VERSION_1) throw new IOException("version");
+                final int command = in.readByte();
+                final String value = in.readBoolean() ? in.readUTF() : null;
+                if(command < TAG_NONE || command > TAG_UNSUBSCRIBE || (command == TAG_SUBSCRIBE && value == null)){
+                    throw new IOException("command");
+                }
+                tagCommand = command;
+                tag = value;
+                logger.info("加载标签命令[" + command + "]");
+            }finally {
+                in.close();
+            }
+        }catch (IOException e){
+            logger.warn("加载标签命令失败,丢弃:" + e.getMessage());
+            if(!file.delete()) logger.warn("删除标签命令文件失败=>" + file);
+        }
+    }
+
+    //保存命令(写入临时文件后替换)
+    private void save(){
+        if(file == null) return;
+        try {
+            if(tagCommand == TAG_NONE){
+                if(file.exists() && !file.delete()) throw new IOException("delete " + file);
+                return;
+            }
+            final File tmp = new File(file.getPath() + ".tmp");
+            final FileOutputStream fos = new FileOutputStream(tmp);
+            try {
+                final DataOutputStream out = new DataOutputStream(fos);
+                out.writeInt(VERSION);
+                out.writeByte(tagCommand);
+                out.writeBoolean(tag != null);
+                if(tag != null) out.writeUTF(tag);
+                out.flush();
+                fos.getFD().sync();
+            }finally {
+                fos.close();
+            }
+            if(!tmp.renameTo(file)) throw new IOException("rename " + tmp);
+        }catch (IOException e){
+            logger.error("保存标签命令失败:" + e.getMessage(), e);
+        }
+    }
+
+    //替换标签的接入配置
+    private static final class TagAccess implements IAccessConfig {
+        private static final long serialVersionUID = 1L;
+        private final IAccessConfig access;
+        private final String tag;
+
+        TagAccess(final IAccessConfig access, final String tag){
+            this.access = access;
+            this.tag = tag;
+        }
+
+        @Override
+        public String getUrl() {
+            return access.getUrl();
+        }
+
+        @Override
+        public String getAccount() {
+            return access.getAccount();
+        }
+
+        @Override
+        public String getPassword() {
+            return access.getPassword();
+        }
+
+        @Override
+        public String getDeviceToken() {
+            return access.getDeviceToken();
+        }
+
+        @Override
+        public String getDeviceName() {
+            return access.getDeviceName();
+        }
+
+        @Override
+        public String getTag() {
+            return tag;
+        }
+    }
+}
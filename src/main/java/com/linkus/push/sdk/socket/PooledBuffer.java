@@ -0,0 +1,76 @@
+package com.linkus.push.sdk.socket;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 池化缓冲区(引用计数,计数归零时归还缓冲池)。
+ */
+public final class PooledBuffer {
+    private final BufferPool pool;
+    private final ByteBuffer buffer;
+    private final AtomicInteger refCnt = new AtomicInteger(0);
+
+    //泄漏检测引用
+    volatile BufferPool.LeakRef leakRef;
+
+    /**
+     * 构造函数。
+     * @param pool
+     * 所属缓冲池。
+     * @param buffer
+     * 缓冲区。
+     */
+    PooledBuffer(final BufferPool pool, final ByteBuffer buffer){
+        this.pool = pool;
+        this.buffer = buffer;
+    }
+
+    //从缓冲池获取
+    void acquired(){
+        refCnt.set(1);
+    }
+
+    /**
+     * 获取缓冲区。
+     * @return 缓冲区。
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * 获取引用计数。
+     * @return 引用计数。
+     */
+    public int refCnt(){
+        return refCnt.get();
+    }
+
+    /**
+     * 增加引用计数。
+     * @return 当前对象。
+     */
+    public PooledBuffer retain(){
+        int cnt;
+        do {
+            cnt = refCnt.get();
+            if(cnt <= 0) throw new IllegalStateException("缓冲区已归还!");
+        }while (!refCnt.compareAndSet(cnt, cnt + 1));
+        return this;
+    }
+
+    /**
+     * 减少引用计数,归零时归还缓冲池。
+     */
+    public void release(){
+        int cnt;
+        do {
+            cnt = refCnt.get();
+            if(cnt <= 0) throw new IllegalStateException("缓冲区已归还!");
+        }while (!refCnt.compareAndSet(cnt, cnt - 1));
+        if(cnt == 1){
+            pool.recycle(this);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.linkus.push.sdk.socket;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 推送ID去重缓存(容量及时间窗口受限)。
+ * <p>
+ * 按接收顺序保存推送ID及接收时间,查找与插入均为O(1):
+ * 插入时先淘汰超出时间窗口的最早记录,超过容量时再淘汰最早的记录。
+ * 时间窗口及容量之内的重复推送ID保证被识别,超出部分不再保证。
+ * </p>
+ */
+final class PushIdCache {
+    /**
+     * 默认容量。
+     */
+    static final int DEF_CAPACITY = 4096;
+    /**
+     * 默认时间窗口(毫秒)。
+     */
+    static final long DEF_WINDOW_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private final int capacity;
+    private final long windowMillis;
+    private final LinkedHashMap<String, Long> ids;
+    private long lookups = 0, duplicates = 0, evicted = 0;
+
+    /**
+     * 构造函数。
+     * @param capacity
+     * 容量。
+     * @param windowMillis
+     * 时间窗口(毫秒)。
+     */
+    PushIdCache(final int capacity, final long windowMillis){
+        if(capacity <= 0) throw new IllegalArgumentException("capacity");
+        if(windowMillis <= 0) throw new IllegalArgumentException("windowMillis");
+        this.capacity = capacity;
+        this.windowMillis = windowMillis;
+        this.ids = new LinkedHashMap<>(Math.min(capacity, DEF_CAPACITY) * 4 / 3 + 1);
+    }
+
+    /**
+     * 记录推送ID。
+     * @param pushId
+     * 推送ID。
+     * @return 是否为首次接收(时间窗口内已接收过返回false)。
+     */
+    synchronized boolean add(final String pushId){
+        final long now = System.currentTimeMillis();
+        lookups++;
+        final Long time = ids.get(pushId);
+        if(time != null && now - time <= windowMillis){
+            duplicates++;
+            return false;
+        }
+        if(time != null){//已超出时间窗口,重新计时
+            ids.remove(pushId);
+        }
+        expire(now);
+        ids.put(pushId, now);
+        return true;
+    }
+
+    //淘汰超出时间窗口及容量的最早记录
+    private void expire(final long now){
+        final Iterator<Map.Entry<String, Long>> it = ids.entrySet().iterator();
+        while (it.hasNext()){
+            final Map.Entry<String, Long> e = it.next();
+            if(ids.size() < capacity && now - e.getValue() <= windowMillis) break;
+            it.remove();
+            evicted++;
+        }
+    }
+
+    /**
+     * 获取指标快照。
+     * @return 去重指标。
+     */
+    synchronized DedupMetrics metrics(){
+        return new DedupMetrics(capacity, ids.size(), lookups, duplicates, evicted);
+    }
+}
@@ -0,0 +1,176 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.utils.LogWrapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 推送ID持久化日志(内存映射文件,进程重启后继续去重)。
+ * <p>
+ * 文件由消息头、开放寻址哈希表及环形记录区组成,均为推送ID的64位哈希:
+ * 哈希表(线性探测,负载因子不超过0.5)用于查找,环形记录区按接收顺序保存哈希,写满后淘汰最早的记录。
+ * 启动时仅映射文件,查找与写入均为内存访问,不产生I/O系统调用,脏页由系统回写(进程被杀不丢失)。
+ * 文件格式不符时重新初始化。
+ * </p>
+ */
+final class PushIdJournal {
+    private static final LogWrapper logger = LogWrapper.getLog(PushIdJournal.class);
+
+    /**
+     * 默认记录数。
+     */
+    static final int DEF_CAPACITY = 8192;
+    /**
+     * 日志文件名。
+     */
+    static final String FILE_NAME = "push-ids.journal";
+
+    //消息头:魔数(4)+版本(4)+记录数(4)+环形区写入位置(4)+已记录数(4),其余保留
+    private static final int MAGIC = 0x50494A31, VERSION = 1, HEADER_SIZE = 32;
+    private static final int POS_MAGIC = 0, POS_VERSION = 4, POS_CAPACITY = 8, POS_HEAD = 12, POS_COUNT = 16;
+
+    private final MappedByteBuffer map;
+    private final int capacity, slots, tableOffset, ringOffset;
+    private int head, count;
+
+    /**
+     * 打开(或创建)日志文件。
+     * @param file
+     * 日志文件。
+     * @param capacity
+     * 记录数。
+     * @throws IOException
+     * 打开或映射文件失败。
+     */
+    PushIdJournal(final File file, final int capacity) throws IOException {
+        if(file == null) throw new IllegalArgumentException("file");
+        if(capacity <= 0) throw new IllegalArgumentException("capacity");
+        this.capacity = capacity;
+        //哈希表槽数为不小于两倍记录数的2的幂
+        int n = 1;
+        while (n < capacity * 2) n <<= 1;
+        this.slots = n;
+        this.tableOffset = HEADER_SIZE;
+        this.ringOffset = HEADER_SIZE + slots * 8;
+        final long size = ringOffset + capacity * 8L;
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            final boolean fresh = raf.length() != size;
+            if(fresh) raf.setLength(size);
+            map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }finally {
+            raf.close();//映射在通道关闭后仍然有效
+        }
+        if(map.getInt(POS_MAGIC) != MAGIC || map.getInt(POS_VERSION) != VERSION || map.getInt(POS_CAPACITY) != capacity
+                || !valid(map.getInt(POS_HEAD), map.getInt(POS_COUNT))){
+            logger.info("初始化推送ID日志=>" + file);
+            reset();
+        }
+        head = map.getInt(POS_HEAD);
+        count = map.getInt(POS_COUNT);
+    }
+
+    private boolean valid(final int head, final int count){
+        return head >= 0 && head < capacity && count >= 0 && count <= capacity;
+    }
+
+    //清空日志
+    private void reset(){
+        for(int i = HEADER_SIZE; i < map.capacity(); i += 8){
+            map.putLong(i, 0L);
+        }
+        map.putInt(POS_HEAD, 0);
+        map.putInt(POS_COUNT, 0);
+        map.putInt(POS_CAPACITY, capacity);
+        map.putInt(POS_VERSION, VERSION);
+        map.putInt(POS_MAGIC, MAGIC);
+    }
+
+    /**
+     * 记录推送ID。
+     * @param pushId
+     * 推送ID。
+     * @return 是否为首次记录(已记录过返回false)。
+     */
+    synchronized boolean add(final String pushId){
+        final long hash = hash(pushId);
+        int slot = (int) (mix(hash) & (slots - 1));
+        long cur;
+        while ((cur = table(slot)) != 0){
+            if(cur == hash) return false;
+            slot = (slot + 1) & (slots - 1);
+        }
+        if(count == capacity){//淘汰最早的记录
+            remove(map.getLong(ringOffset + head * 8));
+            //淘汰后重新定位空槽
+            slot = (int) (mix(hash) & (slots - 1));
+            while (table(slot) != 0){
+                slot = (slot + 1) & (slots - 1);
+            }
+        }else {
+            count++;
+        }
+        map.putLong(tableOffset + slot * 8, hash);
+        map.putLong(ringOffset + head * 8, hash);
+        head = (head + 1) % capacity;
+        map.putInt(POS_HEAD, head);
+        map.putInt(POS_COUNT, count);
+        return true;
+    }
+
+    //从哈希表删除(后移删除,保持线性探测链完整)
+    private void remove(final long hash){
+        int slot = (int) (mix(hash) & (slots - 1));
+        long cur;
+        while ((cur = table(slot)) != hash){
+            if(cur == 0) return;
+            slot = (slot + 1) & (slots - 1);
+        }
+        int hole = slot;
+        int next = (hole + 1) & (slots - 1);
+        while ((cur = table(next)) != 0){
+            final int home = (int) (mix(cur) & (slots - 1));
+            //home不在(hole,next]区间内时可前移至空位
+            if(((next - home) & (slots - 1)) >= ((next - hole) & (slots - 1))){
+                map.putLong(tableOffset + hole * 8, cur);
+                hole = next;
+            }
+            next = (next + 1) & (slots - 1);
+        }
+        map.putLong(tableOffset + hole * 8, 0L);
+    }
+
+    private long table(final int slot){
+        return map.getLong(tableOffset + slot * 8);
+    }
+
+    /**
+     * 获取已记录数。
+     * @return 已记录数。
+     */
+    synchronized int size(){
+        return count;
+    }
+
+    //推送ID的64位哈希(FNV-1a,0保留为空槽)
+    private static long hash(final String pushId){
+        long h = 0xcbf29ce484222325L;
+        for(int i = 0; i < pushId.length(); i++){
+            h ^= pushId.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h == 0 ? 1 : h;
+    }
+
+    //槽位散列
+    private static long mix(long h){
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -16,12 +16,13 @@ import com.linkus.push.sdk.utils.LogWrapper;
 import com.linkus.push.sdk.utils.NetUtils;
 import com.linkus.push.sdk.utils.PollingUtils;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.Socket;
 import java.net.SocketException;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.net.SocketTimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -31,7 +32,7 @@ import java.util.concurrent.atomic.AtomicReference;
  * 推送 socket 客户端处理。
  * Created by jeasonyoung on 2017/3/5.
  */
-public final class PushSocket implements CodecEncoder.CodecEncoderListener, CodecDecoder.CodecDecoderListener {
+public final class PushSocket implements CodecEncoder.CodecEncoderListener, FrameWriter.FrameWriterListener {
     private static final LogWrapper logger = LogWrapper.getLog(PushSocket.class);
 
     //心跳
@@ -40,22 +41,71 @@ public final class PushSocket implements CodecEncoder.CodecEncoderListener, Code
     public static final String ACTION_RECEIVE = "push_socket_receive";
     //重连
     public static final String ACTION_RECONNECT = "push_socket_reconnect";
+    //网络变化
+    public static final String ACTION_NETWORK_CHANGED = "push_socket_network_changed";
 
-    private static final int BUF_SIZE = 1024, RECEIVE_WAIT_INTERVAL = 500;
+    private static final int BUF_SIZE = 8 * 1024;
+
+    /**
+     * 默认socket读取超时(毫秒),超时后检查连接存活。
+     */
+    public static final int DEF_READ_TIMEOUT_MILLIS = 30000;
 
     private final PushSocketListener listener;
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
 
     private final AtomicLong lastIdleTime = new AtomicLong(0L);
-    private final AtomicInteger reconnectTotal = new AtomicInteger(0);
+    //最近接收数据时间(连接存活检查)
+    private final AtomicLong lastReceiveTime = new AtomicLong(0L);
+    private final AtomicInteger watchdogSeq = new AtomicInteger(0);
+    //重连退避及连接尝试状态
+    private final ReconnectBackoff backoff = new ReconnectBackoff(ReconnectBackoff.DEF_BASE_MILLIS,
+            ReconnectBackoff.DEF_CAP_MILLIS, ReconnectBackoff.DEF_BUDGET_MILLIS);
+    private final AtomicBoolean isConnecting = new AtomicBoolean(false);
+    private final Object connectLock = new Object();
+    //服务器下发的重连间隔(毫秒,作为重连等待下限)
+    private volatile long reconnectFloorMillis = 0;
+    private volatile int networkChanges = 0;
     private final AtomicReference<SocketConfig> refSocketConfig = new AtomicReference<>();
     private final AtomicReference<Socket> refSocket = new AtomicReference<>();
-    private final CopyOnWriteArrayList<String> receiverPushIdsCache = new CopyOnWriteArrayList<>();
+    private final AtomicReference<FrameWriter> refWriter = new AtomicReference<>();
+    private final AtomicReference<TrafficRecorder> refRecorder = new AtomicReference<>();
+    private final AtomicReference<InboundQueue> refInbound = new AtomicReference<>();
+    //已连接的传输(未启用或未连接时为null)
+    private final AtomicReference<Transport> refTransport = new AtomicReference<>();
+    private volatile Transport transport;
+    private volatile Transport.TransportFactory transportFactory;
+    private volatile PushIdCache receiverPushIds = new PushIdCache(PushIdCache.DEF_CAPACITY, PushIdCache.DEF_WINDOW_MILLIS);
+    //推送ID持久化日志(首次收到推送消息时打开,无上下文或打开失败时为null)
+    private PushIdJournal pushIdJournal;
+    private boolean pushIdJournalOpened = false;
+    //待应答请求跟踪
+    private volatile InflightTracker inflight;
+    //标签命令队列(收到应答前保留)
+    private final PendingCommands pendingCommands;
+    //是否已收到连接成功应答
+    private volatile boolean isSessionReady = false;
+    //是否已停止(停止后不再重连,重新启动时清除)
+    private volatile boolean isStopped = false;
+    //自适应心跳间隔
+    private volatile AdaptiveHeartbeat heartbeat;
+    private volatile boolean isAdaptiveHeartbeat = true;
+    //当前心跳间隔(秒,未连接时为0)
+    private volatile int pingSeconds = 0;
 
+    private final MessageHandlerRegistry handlers;
     private final CodecDecoder decoder;
     private final CodecEncoder encoder;
     private final Context context;
 
+    private volatile int writeWindowMillis = FrameWriter.DEF_WINDOW_MILLIS, writeBatchBytes = FrameWriter.DEF_BATCH_BYTES;
+    private volatile int inboundCapacity = InboundQueue.DEF_CAPACITY;
+    private volatile OverflowPolicy inboundPolicy = OverflowPolicy.Block;
+    private volatile boolean nioEnabled = false;
+    private volatile int outboundMaxBytes = OutboundBudget.DEF_MAX_BYTES;
+    private volatile int readTimeoutMillis = DEF_READ_TIMEOUT_MILLIS;
+    private volatile int connectTimeoutMillis = SocketConnector.DEF_CONNECT_TIMEOUT_MILLIS;
+
     /**
      * 构造函数函数。
      * @param context
@@ -67,8 +117,333 @@ public final class PushSocket implements CodecEncoder.CodecEncoderListener, Code
         logger.debug("PushSocket=>" + listener);
         this.context = context;
         this.listener = listener;
-        this.decoder = new CodecDecoder(this);
+        this.handlers = createHandlers();
+        this.decoder = new CodecDecoder(handlers);
+        this.decoder.setLargeBodyListener(createSpiller());
         this.encoder = new CodecEncoder();
+        this.pendingCommands = new PendingCommands(context == null ? null : new File(context.getFilesDir(), PendingCommands.FILE_NAME));
+        this.heartbeat = new AdaptiveHeartbeat(getHeartbeatFile(), AdaptiveHeartbeat.DEF_MAX_SECONDS);
+        this.inflight = new InflightTracker(InflightTracker.DEF_TIMEOUT_MILLIS, InflightTracker.DEF_MAX_ATTEMPTS, createInflightListener());
+    }
+
+    //超大消息体落盘至缓存目录
+    private LargeBodyListener createSpiller(){
+        try {
+            return new TempFileBodySpiller(context == null ? null : context.getCacheDir(), new TempFileBodySpiller.SpilledBodyListener() {
+                @Override
+                public void spilled(MessageType type, BodyFormat format, File file) {
+                    //与其他消息帧一起按接收顺序入队,由分发线程处理(在读取线程中调用)
+                    final InboundQueue queue = refInbound.get();
+                    if(queue != null){
+                        queue.offer(new InboundFrame(type, format, file));
+                        return;
+                    }
+                    onSpilled(type, format, file);
+                }
+            });
+        }catch (Exception e){
+            logger.error("create spiller exception:" + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    //注册协议内置消息处理器
+    private MessageHandlerRegistry createHandlers(){
+        final MessageHandler<AckModel> ack = new MessageHandlers.AckHandler() {
+            @Override
+            public void handle(MessageType type, AckModel model) {
+                onAck(type, model);
+            }
+        };
+        return new MessageHandlerRegistry()
+                .register(MessageType.Connack, ack)//连接请求应答
+                .register(MessageType.Pubrel, ack)//推送消息到达请求应答
+                .register(MessageType.Suback, ack)//用户登录请求应答
+                .register(MessageType.Unsuback, ack)//用户注销请求应答
+                .register(MessageType.Publish, new MessageHandlers.PublishHandler() {//推送消息下行
+                    @Override
+                    public void handle(MessageType type, PublishModel model) {
+                        onPublish(model);
+                    }
+                })
+                .register(MessageType.Pingresp, new MessageHandlers.PingResponseHandler() {//心跳请求应答
+                    @Override
+                    public void handle(MessageType type, PingResponseModel model) {
+                        onPingResponse(model);
+                    }
+                });
+    }
+
+    /**
+     * 获取消息处理器注册表(可注册自定义消息类型的处理器或替换内置处理器)。
+     * @return 消息处理器注册表。
+     */
+    public MessageHandlerRegistry getHandlerRegistry(){
+        return handlers;
+    }
+
+    /**
+     * 设置是否启用二进制消息体(默认关闭;启用后在连接请求中声明支持,由服务器在连接应答中选择)。
+     * @param enabled
+     * 是否启用。
+     */
+    public void setBinaryFormatEnabled(final boolean enabled){
+        encoder.setBinarySupported(enabled);
+    }
+
+    /**
+     * 设置是否启用消息体压缩(默认关闭;启用后在连接请求中声明支持,由服务器在连接应答中选择)。
+     * @param enabled
+     * 是否启用。
+     */
+    public void setCompressEnabled(final boolean enabled){
+        encoder.setCompressSupported(enabled);
+    }
+
+    /**
+     * 设置发送合并参数(下次连接时生效)。
+     * @param windowMillis
+     * 合并窗口(毫秒),0表示不等待。
+     * @param batchBytes
+     * 单次写入字节上限。
+     */
+    public void setWriteCoalescing(final int windowMillis, final int batchBytes){
+        if(windowMillis < 0) throw new IllegalArgumentException("windowMillis");
+        if(batchBytes <= 0) throw new IllegalArgumentException("batchBytes");
+        this.writeWindowMillis = windowMillis;
+        this.writeBatchBytes = batchBytes;
+    }
+
+    /**
+     * 设置socket读取超时(下次启动接收时生效)。
+     * <p>
+     * 读取超时后检查连接存活:超过两个心跳周期(未配置心跳时为三个读取超时)未收到任何数据即视为连接失效并断开。
+     * </p>
+     * @param readTimeoutMillis
+     * 读取超时(毫秒)。
+     */
+    public void setReadTimeout(final int readTimeoutMillis){
+        if(readTimeoutMillis <= 0) throw new IllegalArgumentException("readTimeoutMillis");
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * 设置连接总超时(下次连接时生效)。
+     * <p>
+     * 连接时解析服务器全部地址并错开发起连接尝试,最先成功者胜出,超时仍未成功视为连接失败。
+     * </p>
+     * @param connectTimeoutMillis
+     * 连接总超时(毫秒)。
+     */
+    public void setConnectTimeout(final int connectTimeoutMillis){
+        if(connectTimeoutMillis <= 0) throw new IllegalArgumentException("connectTimeoutMillis");
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    /**
+     * 设置发送队列排队字节上限(下次连接时生效),超过上限时发送线程阻塞等待,控制消息不受限制。
+     * @param maxBytes
+     * 排队字节上限。
+     */
+    public void setOutboundQueueLimit(final int maxBytes){
+        if(maxBytes <= 0) throw new IllegalArgumentException("maxBytes");
+        this.outboundMaxBytes = maxBytes;
+    }
+
+    /**
+     * 获取发送队列指标(队列深度、入队至写入socket的延迟、背压阻塞时长等)。
+     * @return 队列指标,未连接时返回null。
+     */
+    public QueueMetrics getOutboundMetrics(){
+        final Transport t = refTransport.get();
+        if(t != null) return t.metrics();
+        final FrameWriter writer = refWriter.get();
+        return writer == null ? null : writer.metrics();
+    }
+
+    /**
+     * 设置是否启用非阻塞传输(默认关闭,下次连接时生效)。
+     * <p>
+     * 启用后连接、读取、发送均由单个事件循环线程处理,不再创建连接任务、接收线程及发送线程,
+     * 也不再启动接收数据定时器。
+     * </p>
+     * @param enabled
+     * 是否启用。
+     */
+    public void setNioTransportEnabled(final boolean enabled){
+        this.nioEnabled = enabled;
+    }
+
+    /**
+     * 设置自定义传输工厂(须在首次连接前设置,null表示使用内置传输)。
+     * <p>
+     * 设置后连接、读取、发送均由工厂创建的传输处理,如 LoopbackServer.factory() 提供的进程内回环传输。
+     * </p>
+     * @param factory
+     * 传输工厂。
+     */
+    public synchronized void setTransportFactory(final Transport.TransportFactory factory){
+        if(transport != null) throw new IllegalStateException("传输已创建,须在首次连接前设置!");
+        this.transportFactory = factory;
+    }
+
+    /**
+     * 使用指定的socket配置直接连接(不经HTTP请求获取配置)。
+     * @param config
+     * socket配置。
+     */
+    public void startSocket(final SocketConfig config){
+        if(config == null) throw new IllegalArgumentException("config");
+        isStopped = false;
+        if(getIsRunning()) return;
+        refSocketConfig.set(config);
+        changedRunStatus(true);
+        startSocket();
+    }
+
+    /**
+     * 设置接收消息队列参数(下次启动接收时生效)。
+     * @param capacity
+     * 队列容量(向上取整为2的幂)。
+     * @param policy
+     * 队列溢出策略。
+     */
+    public void setInboundQueue(final int capacity, final OverflowPolicy policy){
+        if(capacity <= 0) throw new IllegalArgumentException("capacity");
+        if(policy == null) throw new IllegalArgumentException("policy");
+        this.inboundCapacity = capacity;
+        this.inboundPolicy = policy;
+    }
+
+    /**
+     * 设置推送消息去重缓存(已记录的推送ID将被清空)。
+     * @param capacity
+     * 缓存容量(推送ID数)。
+     * @param windowMillis
+     * 去重时间窗口(毫秒)。
+     */
+    public void setDedupCache(final int capacity, final long windowMillis){
+        receiverPushIds = new PushIdCache(capacity, windowMillis);
+    }
+
+    /**
+     * 设置请求应答超时(连接/订阅/取消订阅/心跳/推送应答请求,未应答的请求将被清空)。
+     * <p>
+     * 超时未收到应答时以dup标示重发,超时时长逐次加倍,发送次数达到上限后按请求类型处理失败。
+     * </p>
+     * @param timeoutMillis
+     * 应答超时(毫秒)。
+     * @param maxAttempts
+     * 最多发送次数(含首次发送)。
+     */
+    public void setAckTimeout(final int timeoutMillis, final int maxAttempts){
+        final InflightTracker old = inflight;
+        inflight = new InflightTracker(timeoutMillis, maxAttempts, createInflightListener());
+        old.abort();
+    }
+
+    /**
+     * 设置自适应心跳(默认启用,下次连接时生效)。
+     * <p>
+     * 启用后以服务器下发的心跳间隔为起点逐步延长心跳间隔,心跳应答超时时退回,
+     * 按网络(WiFi SSID或运营商)记录学习到的间隔,以减少无线唤醒次数。
+     * </p>
+     * @param enabled
+     * 是否启用。
+     * @param maxSeconds
+     * 心跳间隔上限(秒)。
+     */
+    public void setAdaptiveHeartbeat(final boolean enabled, final int maxSeconds){
+        this.heartbeat = new AdaptiveHeartbeat(getHeartbeatFile(), maxSeconds);
+        this.isAdaptiveHeartbeat = enabled;
+    }
+
+    /**
+     * 获取自适应心跳指标(当前间隔、节省的唤醒数等)。
+     * @return 心跳指标。
+     */
+    public HeartbeatMetrics getHeartbeatMetrics(){
+        return heartbeat.metrics();
+    }
+
+    //心跳间隔持久化文件
+    private File getHeartbeatFile(){
+        return context == null ? null : new File(context.getFilesDir(), AdaptiveHeartbeat.FILE_NAME);
+    }
+
+    //按当前网络选择心跳间隔
+    private int selectPingSeconds(final int rate){
+        return pingSeconds = isAdaptiveHeartbeat ? heartbeat.select(NetUtils.getNetworkKey(context), rate) : rate;
+    }
+
+    //心跳应答超时(连接失效),退回心跳间隔
+    private void pingMissed(){
+        if(isAdaptiveHeartbeat && pingSeconds > 0){
+            heartbeat.missed();
+        }
+    }
+
+    /**
+     * 获取推送消息去重指标(缓存大小、重复命中率等)。
+     * @return 去重指标。
+     */
+    public DedupMetrics getDedupMetrics(){
+        return receiverPushIds.metrics();
+    }
+
+    /**
+     * 获取重连指标(重连尝试数、恢复连接耗时等)。
+     * @return 重连指标。
+     */
+    public ReconnectMetrics getReconnectMetrics(){
+        return backoff.metrics();
+    }
+
+    /**
+     * 获取接收消息队列指标。
+     * @return 队列指标,未启动接收时返回null。
+     */
+    public QueueMetrics getInboundMetrics(){
+        final InboundQueue queue = refInbound.get();
+        return queue == null ? null : queue.metrics();
+    }
+
+    /**
+     * 设置接收数据录制文件(null表示停止录制),录制文件可由 TrafficReplayer 回放。
+     * @param file
+     * 录制文件(覆盖已存在的文件)。
+     * @throws IOException
+     * 创建录制文件失败。
+     */
+    public void setTrafficCapture(final File file) throws IOException {
+        final TrafficRecorder recorder = (file == null) ? null : new TrafficRecorder(file);
+        final TrafficRecorder old = refRecorder.getAndSet(recorder);
+        if(old != null){
+            old.close();
+        }
+    }
+
+    /**
+     * 设置消息体内存上限(超过时消息体写入临时文件,不在内存中缓存)。
+     * @param maxInMemorySize
+     * 消息体内存上限(字节)。
+     */
+    public void setMaxInMemorySize(final int maxInMemorySize){
+        decoder.setMaxInMemorySize(maxInMemorySize);
+    }
+
+    /**
+     * 设置超大消息体分块监听器(替换默认的临时文件落盘,null表示丢弃超大消息体)。
+     * @param largeBodyListener
+     * 超大消息体分块监听器。
+     */
+    public void setLargeBodyListener(final LargeBodyListener largeBodyListener){
+        decoder.setLargeBodyListener(largeBodyListener);
+    }
+
+    //获取解码器(回放使用)
+    CodecDecoder getDecoder(){
+        return decoder;
     }
 
     /**
@@ -84,6 +459,8 @@ public final class PushSocket implements CodecEncoder.CodecEncoderListener, Code
      */
     public void startHttp() throws Exception {
         logger.debug("startHttp...");
+        //重新启动,恢复重连
+        isStopped = false;
         if (getIsRunning()) return;
         try {
             logger.debug("start http request...");
@@ -131,75 +508,111 @@ public final class PushSocket implements CodecEncoder.CodecEncoderListener, Code
     }
 
     /**
-     * 添加或变更用户标签。
-     * @return 添加或变更结果。
+     * 添加或变更用户标签(在后台线程持久化并发送,未连接时排队,连接成功后发送)。
+     * @return 是否已连接(已连接时立即发送,否则返回false)。
      */
     public boolean addOrChangeTag(){
         logger.debug("addOrChangeTag....");
-        if(!isRunning.get()){
-            logger.warn("socket is close！");
-            return false;
-        }
         //加载配置
         final IAccessConfig access = listener.loadAccessConfig();
         if(access == null)throw new RuntimeException("load access config is null!");
         if(access.getTag() == null || access.getTag().length() == 0){
             throw new RuntimeException("tag is null or length is 0!");
         }
-        //发送绑定用户请求
-        encoder.encodeSubscribe(access, this);
-        return true;
+        //绑定用户请求排队
+        submitTagCommand(access, access.getTag());
+        return isSessionReady;
     }
 
     /**
-     * 解除设备与用户标签的绑定。
-     * @return 解除结果。
+     * 解除设备与用户标签的绑定(在后台线程持久化并发送,未连接时排队,连接成功后发送)。
+     * @return 是否已连接(已连接时立即发送,否则返回false)。
      */
     public boolean clearTag(){
         logger.debug("clearTag...");
-        if(!isRunning.get()){
-            logger.warn("socket is close！");
-            return false;
-        }
         //加载配置
         final IAccessConfig access = listener.loadAccessConfig();
-        if(access != null) {
-            //发送解除用户绑定请求
-            encoder.encodeUnsubscribe(access, this);
-            return true;
-        }
-        return false;
+        if(access == null) return false;
+        //解除用户绑定请求排队
+        submitTagCommand(access, null);
+        return isSessionReady;
+    }
+
+    //在后台线程持久化并发送标签命令(文件同步写入及发送队列背压等待不阻塞调用线程)
+    private void submitTagCommand(final IAccessConfig access, final String tag){
+        new AsyncTask<Void,Void,Void>(){
+            @Override
+            protected Void doInBackground(Void... voids) {
+                try {
+                    if(tag != null){
+                        pendingCommands.subscribe(tag);
+                    }else {
+                        pendingCommands.unsubscribe();
+                    }
+                    flushCommands(access);
+                }catch (Exception e){
+                    logger.error("submit tag command exception:" + e.getMessage(), e);
+                }
+                return null;
+            }
+        }.execute((Void)null);
     }
 
     /**
-     * 关闭socket。
-     * @return 关闭结果。
+     * 关闭socket(已连接时发送断开通知,未连接时取消重连)。
+     * @return 是否已发送断开通知。
      */
     public boolean closeSocket(){
         logger.debug("closeSocket...");
-        if(!isRunning.get()){
-            logger.warn("socket is close！");
-            return false;
+        isStopped = true;
+        //停止重连定时器并唤醒重连线程
+        stopPolling(ACTION_RECONNECT);
+        synchronized (connectLock){
+            connectLock.notifyAll();
         }
         //加载配置
         final IAccessConfig access = listener.loadAccessConfig();
-        if(access != null) {
-            //发送断开socket通知
-            encoder.encodeDisconnect(access, this);
+        if(isSessionReady && access != null){
+            //在后台线程发送断开socket通知(发送队列背压等待不阻塞调用线程)
+            new AsyncTask<Void,Void,Void>(){
+                @Override
+                protected Void doInBackground(Void... voids) {
+                    try {
+                        encoder.encodeDisconnect(access, PushSocket.this);
+                    }catch (Exception e){
+                        logger.error("send disconnect exception:" + e.getMessage(), e);
+                    }
+                    return null;
+                }
+            }.execute((Void)null);
             return true;
         }
+        logger.warn("socket is not connected, stop reconnect!");
+        changedRunStatus(false);
+        closeConnection();
         return false;
     }
 
+    //发送排队的命令(未收到连接成功应答时保留)
+    private boolean flushCommands(final IAccessConfig access){
+        if(!isSessionReady){
+            logger.warn("socket is not connected, command queued!");
+            return false;
+        }
+        final int count = pendingCommands.flush(access, encoder, this);
+        logger.info("send queued commands=>" + count);
+        return count > 0;
+    }
+
     //更新运行状态
     private void changedRunStatus(final boolean status){
         if(isRunning.get() != status) {
             isRunning.set(status);
             if(!status){
                 //停止心跳定时器
-                PollingUtils.stopPollingService(context, PushClientService.class, ACTION_PING);
+                stopPolling(ACTION_PING);
                 //停止接收数据定时器
-                PollingUtils.stopPollingService(context, PushClientService.class, ACTION_RECEIVE);
+                stopPolling(ACTION_RECEIVE);
             }
             if(listener != null){
                 listener.socketChangedRunStatus(status);
@@ -207,9 +620,34 @@ public final class PushSocket implements CodecEncoder.CodecEncoderListener, Code
         }
     }
 
+    //启动定时器(无Android上下文时不加载服务类)
+    private void startPolling(final int seconds, final String action){
+        if(context == null) return;
+        PollingUtils.startPollingService(context, seconds, PushClientService.class, action);
+    }
+
+    //停止定时器(无Android上下文时不加载服务类)
+    private void stopPolling(final String action){
+        if(context == null) return;
+        PollingUtils.stopPollingService(context, PushClientService.class, action);
+    }
+
+    //连接尝试结束,唤醒等待的重连线程
+    private void connectFinished(){
+        synchronized (connectLock){
+            isConnecting.set(false);
+            connectLock.notifyAll();
+        }
+    }
+
     //启动socket
     private void startSocket() {
-        if(refSocketConfig.get() == null)return;
+        if(refSocketConfig.get() == null || isStopped)return;
+        isConnecting.set(true);
+        if(nioEnabled || transportFactory != null){
+            startTransportSocket();
+            return;
+        }
         //异步启动socket连接
         new AsyncTask<Void,Void,Boolean>(){
             @Override
@@ -229,30 +667,44 @@ public final class PushSocket implements CodecEncoder.CodecEncoderListener, Code
                         logger.error("socket port["+ cfg.getPort() +"] is invalid!");
                         return false;
                     }
-                    //判断服务器是否为IP
-                    final String serverIP = NetUtils.convertToIPAddr(cfg.getServer());
-                    if(serverIP == null || serverIP.length() == 0){
-                        logger.error("server host to ip fail("+ cfg.getServer() +"=>"+ serverIP +")!");
-                        return false;
+                    //连接服务器(全部解析地址错开竞速)
+                    final int timeout = connectTimeoutMillis;
+                    final Socket socket = new SocketConnector(SocketConnector.DEF_ATTEMPT_DELAY_MILLIS,
+                            Math.min(SocketConnector.DEF_ATTEMPT_TIMEOUT_MILLIS, timeout), timeout)
+                            .connect(cfg.getServer(), cfg.getPort());
+                    //关闭上一连接的socket
+                    final Socket old = refSocket.getAndSet(socket);
+                    if(old != null && old != socket){
+                        try {
+                            old.close();
+                        }catch (Exception e){
+                            logger.warn("close old socket exception:" + e.getMessage(), e);
+                        }
                     }
-                    logger.debug("socket server("+ cfg.getServer() +"=>"+ serverIP +")...");
-                    //连接服务器
-                    final Socket socket = new Socket(serverIP, cfg.getPort());
-                    if (!socket.isConnected()) {//连接服务器失败
-                        logger.warn("socket connect fail!");
-                        NetUtils.clearCache(cfg.getServer());
-                        changedRunStatus(false);
-                        return false;
+                    lastReceiveTime.set(System.currentTimeMillis());
+                    //新连接丢弃上一连接未完整的消息
+                    decoder.reset();
+                    final TrafficRecorder recorder = refRecorder.get();
+                    if(recorder != null){
+                        recorder.markConnect();
                     }
-                    refSocket.set(socket);
+                    //启动发送器
+                    final FrameWriter writer = new FrameWriter(socket.getOutputStream(), writeWindowMillis, writeBatchBytes,
+                            new OutboundBudget(outboundMaxBytes, OutboundBudget.DEF_BLOCK_MILLIS), PushSocket.this);
+                    closeWriter(refWriter.getAndSet(writer));
+                    writer.start();
                     //设置运行状态
                     changedRunStatus(true);
+                    backoff.connected();
+                    reconnectFloorMillis = 0;
                     logger.info("socket connect success!");
                     return true;
                 }catch (Exception e){
                     //设置运行状态
                     changedRunStatus(false);
                     logger.error("start socket exception:" + e.getMessage(), e);
+                }finally {
+                    connectFinished();
                 }
                 return false;
             }
@@ -268,8 +720,6 @@ public final class PushSocket implements CodecEncoder.CodecEncoderListener, Code
                     }
                     //启动消息接收子线程
                     startReceive();
-                    //启动接收消息定时器
-                    PollingUtils.startPollingService(context, Math.max(RECEIVE_WAIT_INTERVAL/100, 1), PushClientService.class, ACTION_RECEIVE);
                     //发送连接请求
                     encoder.encodeConnectRequest(access, PushSocket.this);
                 }catch (Exception e){
@@ -279,11 +729,160 @@ public final class PushSocket implements CodecEncoder.CodecEncoderListener, Code
         }.execute((Void)null);
     }
 
+    //经传输启动socket连接
+    private void startTransportSocket(){
+        final SocketConfig cfg = refSocketConfig.get();
+        if(cfg == null){
+            logger.error("start socket load socket conf fail!");
+            connectFinished();
+            return;
+        }
+        logger.info("start socket=>" + cfg);
+        if(cfg.getServer() == null || cfg.getServer().length() == 0){
+            logger.error("socket server address is null!");
+            connectFinished();
+            return;
+        }
+        if(cfg.getPort() <= 0){
+            logger.error("socket port["+ cfg.getPort() +"] is invalid!");
+            connectFinished();
+            return;
+        }
+        try {
+            final Transport t = getTransport();
+            t.setMaxQueueBytes(outboundMaxBytes);
+            t.connect(cfg.getServer(), cfg.getPort(), connectTimeoutMillis);
+        }catch (Exception e){
+            connectFinished();
+            changedRunStatus(false);
+            logger.error("start socket exception:" + e.getMessage(), e);
+        }
+    }
+
+    //获取传输(首次调用时创建并启动)
+    private synchronized Transport getTransport() throws IOException {
+        if(transport == null){
+            final Transport.TransportFactory factory = transportFactory;
+            final Transport t = factory != null ? factory.create(createTransportListener())
+                    : new NioTransport(writeWindowMillis, writeBatchBytes, outboundMaxBytes, createTransportListener());
+            if(t == null) throw new IllegalStateException("传输工厂创建传输失败!");
+            transport = t;
+            try {
+                t.start();
+            }catch (IOException e){
+                transport = null;
+                throw e;
+            }
+        }
+        return transport;
+    }
+
+    //传输事件处理(传输线程)
+    private Transport.TransportListener createTransportListener(){
+        return new Transport.TransportListener() {
+            @Override
+            public void connected() {
+                //新连接丢弃上一连接未完整的消息
+                decoder.reset();
+                final TrafficRecorder recorder = refRecorder.get();
+                if(recorder != null){
+                    recorder.markConnect();
+                }
+                refTransport.set(transport);
+                lastReceiveTime.set(System.currentTimeMillis());
+                scheduleWatchdog(transport, watchdogSeq.incrementAndGet());
+                startDispatch();
+                changedRunStatus(true);
+                backoff.connected();
+                reconnectFloorMillis = 0;
+                connectFinished();
+                //发送连接请求
+                final IAccessConfig access = listener.loadAccessConfig();
+                if(access == null){
+                    logger.warn("start socket load access config fail!");
+                    return;
+                }
+                encoder.encodeConnectRequest(access, PushSocket.this);
+            }
+
+            @Override
+            public void received(byte[] data, int offset, int length) {
+                //更新时间戳
+                final long now = System.currentTimeMillis();
+                lastIdleTime.set(now);
+                lastReceiveTime.set(now);
+                //录制接收数据
+                final TrafficRecorder recorder = refRecorder.get();
+                if (recorder != null) {
+                    recorder.record(data, offset, length);
+                }
+                try {
+                    //解析消息
+                    decoder.addDecode(data, offset, length);
+                } catch (Exception e) {
+                    logger.warn("receive data parse exception:" + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public void written(MessageType type) {
+                PushSocket.this.written(type);
+            }
+
+            @Override
+            public void closed(Exception cause) {
+                logger.warn("socket closed:" + (cause == null ? null : cause.getMessage()));
+                refTransport.set(null);
+                isSessionReady = false;
+                pingSeconds = 0;
+                inflight.abort();
+                pendingCommands.closed();
+                final InboundQueue queue = refInbound.get();
+                if(queue != null){
+                    stopDispatch(queue);
+                }
+                changedRunStatus(false);
+                connectFinished();
+            }
+        };
+    }
+
+    //传输连接存活检查(每个读取超时检查一次)
+    private void scheduleWatchdog(final Transport t, final int seq){
+        t.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if(seq != watchdogSeq.get() || refTransport.get() != t) return;
+                if(!isAlive()){
+                    logger.warn("socket receive timeout, connection is dead!");
+                    pingMissed();
+                    changedRunStatus(false);
+                    closeConnection();
+                    return;
+                }
+                scheduleWatchdog(t, seq);
+            }
+        }, readTimeoutMillis);
+    }
+
+    //连接存活检查(超过两个心跳周期未收到任何数据视为连接失效)
+    private boolean isAlive(){
+        final long last = lastReceiveTime.get();
+        if(last <= 0) return true;
+        final SocketConfig cfg = refSocketConfig.get();
+        final int rate = pingSeconds > 0 ? pingSeconds : (cfg == null ? 0 : cfg.getRate());
+        final long limit = rate > 0 ? rate * 2000L + readTimeoutMillis : readTimeoutMillis * 3L;
+        return System.currentTimeMillis() - last <= limit;
+    }
+
     private final AtomicBoolean isReceive = new AtomicBoolean(false);
     /**
      * 启动socket消息接收。
      */
     public void startReceive() {
+        if(refTransport.get() != null){//传输自行接收
+            return;
+        }
         if(!isRunning.get()){
             logger.warn("socket running is stop, no start receive!");
             return;
@@ -298,50 +897,121 @@ public final class PushSocket implements CodecEncoder.CodecEncoderListener, Code
                 //检查是否有接收器运行
                 if(isReceive.get()) return;
                 isReceive.set(true);
+                PooledBuffer readBuf = null;
+                InboundQueue queue = null;
                 try {
                     final Socket socket = refSocket.get();
                     if(socket != null){
-                        final ByteArrayOutputStream data = new ByteArrayOutputStream(BUF_SIZE);
-                        byte buf[] = new byte[BUF_SIZE];
+                        //启动消息分发线程
+                        queue = startDispatch();
+                        readBuf = BufferPool.shared().acquire(BUF_SIZE);
+                        final byte buf[] = readBuf.buffer().array();
                         int count;
-                        //从socket获取数据
-                        final DataInputStream inputStream = new DataInputStream(socket.getInputStream());
+                        //从socket获取数据(阻塞至有数据到达或读取超时)
+                        socket.setSoTimeout(readTimeoutMillis);
+                        final InputStream inputStream = socket.getInputStream();
                         while (isRunning.get() && socket.isConnected() && !socket.isClosed()) {
-                            //重置输出
-                            if(data.size() > 0) data.reset();
                             logger.debug("socket receive wait data...");
-                            count = inputStream.read(buf, 0, buf.length);
+                            try {
+                                count = inputStream.read(buf, 0, buf.length);
+                            } catch (SocketTimeoutException e) {//读取超时,检查连接存活
+                                if (isAlive()) continue;
+                                logger.warn("socket receive timeout, connection is dead!");
+                                pingMissed();
+                                closeConnection();
+                                changedRunStatus(false);
+                                break;
+                            }
+                            if (count < 0) {//服务器关闭连接
+                                logger.warn("socket closed by server!");
+                                closeConnection();
+                                changedRunStatus(false);
+                                break;
+                            }
                             if (count > 0) {
-                                data.write(buf, 0, count);
                                 //更新时间戳
-                                lastIdleTime.set(System.currentTimeMillis());
+                                final long now = System.currentTimeMillis();
+                                lastIdleTime.set(now);
+                                lastReceiveTime.set(now);
                                 logger.info("socket receive read data:" + count);
+                                //录制接收数据
+                                final TrafficRecorder recorder = refRecorder.get();
+                                if (recorder != null) {
+                                    recorder.record(buf, 0, count);
+                                }
                                 try {
                                     //解析消息
-                                    decoder.addDecode(data.toByteArray());
+                                    decoder.addDecode(buf, 0, count);
                                 } catch (Exception e) {
                                     logger.warn("receive data parse exception:" + e.getMessage(), e);
                                 }
-                                //线程等待
-                                logger.debug("receive thread wait[" + RECEIVE_WAIT_INTERVAL + " ms]=>" + lastIdleTime.get());
-                                Thread.sleep(RECEIVE_WAIT_INTERVAL);
                             }
                             //检查接收socket消息是否继续
                             if (!isReceive.get()) break;
                         }
                     }
                 }catch (SocketException e){
-                    changedRunStatus(false);
                     logger.error("receive thread socket exception:" + e.getMessage(), e);
+                    //关闭连接(重置会话状态),再通知重连
+                    closeConnection();
+                    changedRunStatus(false);
                 }catch (Exception ex){
                     logger.error("receive thread exception:" + ex.getMessage(), ex);
                 }finally {
+                    if(readBuf != null) readBuf.release();
+                    if(queue != null) stopDispatch(queue);
                     isReceive.set(false);
                 }
             }
         }).start();
     }
 
+    //创建接收消息队列并启动分发线程
+    private InboundQueue startDispatch(){
+        final InboundQueue queue = new InboundQueue(inboundCapacity, inboundPolicy, new InboundQueue.OverflowListener() {
+            @Override
+            public void overflow(InboundQueue queue) {
+                //断开连接,重连后由服务器重发未应答的消息
+                changedRunStatus(false);
+                closeConnection();
+            }
+        });
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                InboundFrame frame;
+                while ((frame = queue.take()) != null){
+                    final File file = frame.takeFile();
+                    if(file == null){
+                        decoder.dispatch(frame);
+                        continue;
+                    }
+                    try {
+                        onSpilled(frame.getType(), frame.getFormat(), file);
+                    }catch (Exception e){
+                        logger.error("spilled message[" + frame.getType() + "] exception:" + e.getMessage(), e);
+                    }finally {
+                        frame.release();
+                    }
+                }
+                logger.debug("dispatch thread exit=>" + queue.metrics());
+            }
+        }, "push-socket-dispatcher");
+        thread.setDaemon(true);
+        thread.start();
+        refInbound.set(queue);
+        decoder.setInboundQueue(queue);
+        return queue;
+    }
+
+    //停止接收消息队列(分发线程处理完剩余消息后退出)
+    private void stopDispatch(final InboundQueue queue){
+        if(refInbound.compareAndSet(queue, null)){
+            decoder.setInboundQueue(null);
+        }
+        queue.close();
+    }
+
     private final AtomicBoolean isPing = new AtomicBoolean(false);
 
     //启动心跳循环线程
@@ -365,9 +1035,10 @@ public final class PushSocket implements CodecEncoder.CodecEncoderListener, Code
                         logger.warn("socket running is stop so send ping cancel! =>thread:" + Thread.currentThread());
                         return false;
                     }
+                    if(isAdaptiveHeartbeat && pingSeconds > 0) heartbeat.wakeup();
                     //检查是否应该发送心跳数据
                     final long lastIdle = lastIdleTime.get(), current = System.currentTimeMillis();
-                    final int interval = refSocketConfig.get().getRate() * 1000;
+                    final int interval = (pingSeconds > 0 ? pingSeconds : refSocketConfig.get().getRate()) * 1000;
                     return  (lastIdle > 0) && (current - lastIdle > interval);
                 }catch (Exception e){
                     logger.error("send ping exception[thread:"+ Thread.currentThread() +"]:" + e.getMessage(), e);
@@ -392,146 +1063,310 @@ public final class PushSocket implements CodecEncoder.CodecEncoderListener, Code
         }.execute((Void)null);
     }
 
+    //关闭发送器
+    private static void closeWriter(final FrameWriter writer){
+        if(writer != null){
+            writer.close();
+        }
+    }
+
     //消息编码
     @Override
-    public void encode(final MessageType type,final byte[] data) {
-        if(refSocket.get() == null) return;
-        new Thread(new Runnable() {
+    public void encode(final MessageType type,final PooledBuffer frame) {
+        //登记须应答的请求
+        inflight.track(type, frame);
+        send(type, frame);
+    }
+
+    //发送消息帧(传输或发送器)
+    private void send(final MessageType type, final PooledBuffer frame){
+        final Transport t = refTransport.get();
+        if(t != null){
+            logger.info("send encode data[" + type + "]...");
+            if(!t.offer(type, frame)){
+                logger.warn("send data fail[" + type + "]-连接已关闭!");
+            }
+            return;
+        }
+        final FrameWriter writer = refWriter.get();
+        if(refSocket.get() == null || writer == null){
+            frame.release();
+            return;
+        }
+        logger.info("send encode data[" + type + "]...");
+        if(!writer.offer(type, frame)){
+            logger.warn("send data fail[" + type + "]-发送器已关闭!");
+        }
+    }
+
+    //待应答请求跟踪监听器
+    private InflightTracker.InflightListener createInflightListener(){
+        return new InflightTracker.InflightListener() {
             @Override
-            public void run() {
-                try {
-                    final Socket socket = refSocket.get();
-                    if (socket != null && socket.isConnected() && !socket.isClosed()) {
-                        logger.info("send encode data[" + type + "]...");
-                        final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
-                        out.write(data);
-                        out.flush();
-                        //更新时间戳
-                        lastIdleTime.set(System.currentTimeMillis());
-                        logger.info("send data successful !");
-                        if (type == MessageType.Disconnect) {
-                            logger.info("socket will closed!");
-                            //更新运行状态
-                            changedRunStatus(false);
-                            //关闭套接字
-                            socket.close();
-                            refSocket.set(null);
-                        }
-                    }
-                }catch (SocketException e){
-                    logger.error("send data socket exception:" + e.getMessage(), e);
-                    changedRunStatus(false);
-                } catch (Exception e) {
-                    logger.error("send data fail[" + type + "]-" + e.getMessage(), e);
+            public void retransmit(MessageType type, byte[] data) {
+                final PooledBuffer frame = BufferPool.shared().acquire(data.length);
+                frame.buffer().put(data).flip();
+                send(type, frame);
+            }
+
+            @Override
+            public void failed(MessageType type, long seq, int attempts, boolean closed) {
+                onRequestFailed(type, seq, attempts, closed);
+            }
+        };
+    }
+
+    //请求未收到应答处理
+    private void onRequestFailed(final MessageType type, final long seq, final int attempts, final boolean closed){
+        if(closed){//连接关闭,标签命令保留在队列中,重连应答后重新发送
+            logger.info("request[" + type + "#" + seq + "] canceled, connection closed!");
+            return;
+        }
+        switch (type){
+            case Connect:
+            case Pingreq:{//连接不可用,关闭后重连
+                logger.warn("[" + type + "]请求应答超时(" + attempts + "),关闭连接!");
+                if(type == MessageType.Pingreq){//心跳未应答,退回心跳间隔
+                    pingMissed();
                 }
+                changedRunStatus(false);
+                closeConnection();
+                break;
             }
-        }).start();
+            case Subscribe:
+            case Unsubscribe:{//标签命令保留,下次连接应答后重新发送
+                pendingCommands.failed();
+                listener.socketErrorMessage(AckResult.Runntime, "[" + type + "]请求应答超时!");
+                break;
+            }
+            default:{
+                logger.warn("[" + type + "]请求应答超时(" + attempts + ")!");
+                break;
+            }
+        }
     }
 
-    //消息解码
+    //消息帧已发送
     @Override
-    public void decode(final MessageType type, final Object model) {
-        logger.info("receive message("+ type +")=>" + model);
-        switch (type){
-            case Connack://连接请求应答
-            case Pubrel://推送消息到达请求应答
-            case Suback://用户登录请求应答
-            case Unsuback://用户注销请求应答
-            {
-                final AckModel data = (AckModel)model;
-                if(data.getResult() != AckResult.Success){
-                    logger.error("["+ type +"]消息应答["+ data.getResult() +"]=>" + data.getMsg());
-                    listener.socketErrorMessage(data.getResult(), data.getMsg());
-                    return;
+    public void written(final MessageType type) {
+        //更新时间戳
+        lastIdleTime.set(System.currentTimeMillis());
+        if (type == MessageType.Disconnect) {
+            logger.info("socket will closed!");
+            //更新运行状态
+            changedRunStatus(false);
+            closeConnection();
+        }
+    }
+
+    //关闭发送器及套接字
+    private void closeConnection(){
+        isSessionReady = false;
+        pingSeconds = 0;
+        inflight.abort();
+        pendingCommands.closed();
+        final Transport t = refTransport.getAndSet(null);
+        if (t != null) {
+            t.disconnect();
+            final InboundQueue queue = refInbound.get();
+            if (queue != null) {
+                stopDispatch(queue);
+            }
+        }
+        closeWriter(refWriter.getAndSet(null));
+        final Socket socket = refSocket.getAndSet(null);
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (Exception e) {
+                logger.warn("close socket exception:" + e.getMessage(), e);
+            }
+        }
+    }
+
+    //消息帧发送失败
+    @Override
+    public void writeFailed(final Exception e) {
+        logger.error("send data socket exception:" + e.getMessage(), e);
+        if (e instanceof SocketException) {
+            changedRunStatus(false);
+        }
+    }
+
+    //应答消息处理(连接/推送到达/用户登录/用户注销)
+    private void onAck(final MessageType type, final AckModel data){
+        logger.info("receive message(" + type + ")=>" + data);
+        inflight.complete(type);
+        //标签命令已应答,移出队列
+        if(type == MessageType.Suback || type == MessageType.Unsuback){
+            pendingCommands.acked();
+        }
+        if(data == null) return;
+        if(data.getResult() != AckResult.Success){
+            logger.error("["+ type +"]消息应答["+ data.getResult() +"]=>" + data.getMsg());
+            listener.socketErrorMessage(data.getResult(), data.getMsg());
+            return;
+        }
+        //连接应答,启动心跳
+        if(type == MessageType.Connack){
+            //连接过程中已停止,发送断开通知
+            final IAccessConfig stopAccess;
+            if(isStopped && (stopAccess = listener.loadAccessConfig()) != null){
+                logger.warn("socket stopped while connecting, disconnect!");
+                encoder.encodeDisconnect(stopAccess, this);
+                return;
+            }
+            //消息体格式协商
+            if(data.getFormat() != null){
+                encoder.setNegotiatedFormats(data.getFormat());
+                logger.info("消息体格式=>" + encoder.getFormat() + ",压缩=>" + encoder.getCompress());
+            }
+            try {
+                //获取心跳配置
+                final SocketConfig sc = refSocketConfig.get();
+                if(sc == null) throw new Exception("获取socket配置数据失败!");
+                if(sc.getRate() > 0) {
+                    //启动心跳循环处理(按当前网络选择心跳间隔)
+                    startPolling(selectPingSeconds(sc.getRate()), ACTION_PING);
                 }
-                //连接应答,启动心跳
-                if(type == MessageType.Connack){
-                    try {
-                        //获取心跳配置
-                        final SocketConfig sc = refSocketConfig.get();
-                        if(sc == null) throw new Exception("获取socket配置数据失败!");
-                        if(sc.getRate() > 0) {
-                            //启动心跳循环处理
-                            PollingUtils.startPollingService(context, sc.getRate(), PushClientService.class, ACTION_PING);
-                        }
-                    }catch (Exception e){
-                        logger.error("start ping exception:" + e.getMessage(), e);
-                        listener.socketErrorMessage(AckResult.Runntime, e.getMessage());
-                    }
+            }catch (Exception e){
+                logger.error("start ping exception:" + e.getMessage(), e);
+                listener.socketErrorMessage(AckResult.Runntime, e.getMessage());
+            }
+            //发送离线期间排队的命令
+            isSessionReady = true;
+            final IAccessConfig access;
+            if(!pendingCommands.isEmpty() && (access = listener.loadAccessConfig()) != null){
+                flushCommands(access);
+            }
+        }
+    }
+
+    //超大消息体落盘处理
+    private void onSpilled(final MessageType type, final BodyFormat format, final File file){
+        if(type == MessageType.Publish && format == BodyFormat.Json && !isCompressedFile(file)){
+            onPublish(new PublishModel(file));
+            return;
+        }
+        logger.error("超大消息体[" + type + "," + format + "]不支持落盘处理,丢弃!");
+        if(!file.delete()) logger.warn("删除临时文件失败=>" + file);
+    }
+
+    //判断临时文件是否为压缩消息体
+    private static boolean isCompressedFile(final File file){
+        final byte[] head = new byte[8];
+        int count = 0;
+        try {
+            final InputStream in = new FileInputStream(file);
+            try {
+                int n;
+                while (count < head.length && (n = in.read(head, count, head.length - count)) > 0){
+                    count += n;
                 }
-                break;
+            }finally {
+                in.close();
             }
-            case Publish: {//推送消息下行
-                final PublishModel data = (PublishModel)model;
-                if(data != null){
-                    logger.debug("decode-publish=>" + data);
-                    //应答消息反馈
-                    encoder.encodePublishAckRequest(listener.loadAccessConfig(), data.getPushId(), this);
-                    //判断是否重复
-                    if(receiverPushIdsCache.contains(data.getPushId())){
-                        logger.warn("decode-消息["+ data.getPushId()+"]已接收过,忽略!");
-                        return;
-                    }
-                    //添加到缓存
-                    receiverPushIdsCache.add(data.getPushId());
-                    //回调处理
-                    listener.socketPublish(data);
+        }catch (IOException e){
+            logger.warn("read spilled file exception:" + e.getMessage());
+        }
+        return FrameCompressor.isCompressed(head, 0, count);
+    }
+
+    //推送消息下行处理
+    private void onPublish(final PublishModel data){
+        if(data != null){
+            logger.debug("decode-publish=>" + data.getPushId());
+            //应答消息反馈
+            encoder.encodePublishAckRequest(listener.loadAccessConfig(), data.getPushId(), this);
+            //判断是否重复(并记录),内存缓存之外再查持久化日志(进程重启前已接收)
+            final PushIdJournal journal = getPushIdJournal();
+            final String pushId = data.getPushId();
+            if(pushId != null && (!receiverPushIds.add(pushId) || (journal != null && !journal.add(pushId)))){
+                logger.warn("decode-消息["+ data.getPushId()+"]已接收过,忽略!");
+                if(data.getFile() != null && !data.getFile().delete()){
+                    logger.warn("删除临时文件失败=>" + data.getFile());
                 }
-                break;
+                return;
             }
-            case Pingresp: {//心跳请求应答
-                PingResponseModel data = (PingResponseModel)model;
-                if(data != null){
-                    final int rate, after;
-                    if((rate = data.getHeartRate()) > 0) {
-                        final SocketConfig socketConfig = refSocketConfig.get();
-                        if (socketConfig == null) return;
-                        socketConfig.setRate(rate);
-                        refSocketConfig.set(socketConfig);
-                        try {
-                            //心跳频率发送变化重启心跳
-                            //关闭心跳定时
-                            PollingUtils.stopPollingService(context, PushClientService.class, ACTION_PING);
-                            //重启心跳定时器
-                            PollingUtils.startPollingService(context, rate, PushClientService.class, ACTION_PING);
-                        } catch (Exception e) {
-                            logger.error("restart ping exception:" + e.getMessage(), e);
-                            listener.socketErrorMessage(AckResult.Runntime, e.getMessage());
-                        }
-                    }
-                    if((after = data.getAfterConnect()) > 0){
-                        isRunning.set(true);//关闭运行状态
-                        final SocketConfig socketConfig = refSocketConfig.get();
-                        if(socketConfig == null) return;
-                        //设置数据
-                        socketConfig.setReconnect(after);
-                        refSocketConfig.set(socketConfig);
-                        //关闭socket
-                        final Socket socket;
-                        if((socket = refSocket.get()) != null){
-                            try {
-                                changedRunStatus(false);
-                                socket.close();
-                                refSocket.set(null);
-                            }catch (Exception e){
-                                logger.warn("shutdown socket exception:" + e.getMessage(), e);
-                            }finally {
-                                //启动重连定时器
-                                PollingUtils.startPollingService(context, after, PushClientService.class, ACTION_RECONNECT);
-                            }
-                        }
+            //回调处理
+            listener.socketPublish(data);
+        }
+    }
+
+    //获取推送ID持久化日志
+    private synchronized PushIdJournal getPushIdJournal(){
+        if(!pushIdJournalOpened){
+            pushIdJournalOpened = true;
+            final File dir = context == null ? null : context.getCacheDir();
+            if(dir != null){
+                try {
+                    pushIdJournal = new PushIdJournal(new File(dir, PushIdJournal.FILE_NAME), PushIdJournal.DEF_CAPACITY);
+                    logger.info("推送ID日志已加载[" + pushIdJournal.size() + "]");
+                }catch (IOException e){
+                    logger.error("打开推送ID日志失败:" + e.getMessage(), e);
+                }
+            }
+        }
+        return pushIdJournal;
+    }
+
+    //心跳应答处理
+    private void onPingResponse(final PingResponseModel data){
+        logger.info("receive message(" + MessageType.Pingresp + ")=>" + data);
+        inflight.complete(MessageType.Pingresp);
+        if(data != null){
+            final int rate, after;
+            final SocketConfig sc = refSocketConfig.get();
+            int seconds = 0;
+            if((rate = data.getHeartRate()) > 0 && sc != null && rate != sc.getRate()) {
+                //心跳频率发生变化,重新选择心跳间隔
+                sc.setRate(rate);
+                refSocketConfig.set(sc);
+                seconds = selectPingSeconds(rate);
+            }else if(isAdaptiveHeartbeat && pingSeconds > 0 && heartbeat.succeeded()){
+                //连续心跳应答成功,延长心跳间隔
+                seconds = pingSeconds = heartbeat.interval();
+            }
+            if(seconds > 0) {
+                try {
+                    //关闭心跳定时
+                    stopPolling(ACTION_PING);
+                    //重启心跳定时器
+                    startPolling(seconds, ACTION_PING);
+                } catch (Exception e) {
+                    logger.error("restart ping exception:" + e.getMessage(), e);
+                    listener.socketErrorMessage(AckResult.Runntime, e.getMessage());
+                }
+            }
+            if((after = data.getAfterConnect()) > 0){
+                isRunning.set(true);//关闭运行状态
+                final SocketConfig socketConfig = refSocketConfig.get();
+                if(socketConfig == null) return;
+                //设置数据
+                socketConfig.setReconnect(after);
+                refSocketConfig.set(socketConfig);
+                reconnectFloorMillis = after * 1000L;
+                //关闭socket
+                if(refSocket.get() != null || refTransport.get() != null){
+                    try {
+                        changedRunStatus(false);
+                        closeConnection();
+                    }catch (Exception e){
+                        logger.warn("shutdown socket exception:" + e.getMessage(), e);
+                    }finally {
+                        //启动重连定时器
+                        startPolling(after, ACTION_RECONNECT);
                     }
-                    //启动日志上传处理
-                    logger.debug("启动日志上传处理...");
-                    logger.uploadLogFiles(new LogWrapper.UploaderLogAccessListener(){
-                        @Override
-                        public IAccessConfig loadAccessConfig() {
-                            return listener.loadAccessConfig();
-                        }
-                    });
                 }
-                break;
             }
+            //启动日志上传处理
+            logger.debug("启动日志上传处理...");
+            logger.uploadLogFiles(new LogWrapper.UploaderLogAccessListener(){
+                @Override
+                public IAccessConfig loadAccessConfig() {
+                    return listener.loadAccessConfig();
+                }
+            });
         }
     }
 
@@ -539,52 +1374,57 @@ public final class PushSocket implements CodecEncoder.CodecEncoderListener, Code
     private final AtomicBoolean isRestart = new AtomicBoolean(false);
     /**
      * 启动重连子线程。
+     * <p>
+     * 按去相关指数退避(随机抖动)等待后重连,服务器下发的重连间隔作为等待下限;
+     * 每次重连等待连接尝试结束后再计算下次等待时长,一轮重连预算耗尽后放弃并由重连定时器再次唤醒。
+     * </p>
      */
     public void startReconnect(){
         logger.debug("start reconnect...");
-        if(isRunning.get() || refSocketConfig.get() == null) return;
-        //重置重连次数计数器
-        if(reconnectTotal.get() > 0){
-            reconnectTotal.set(0);
-        }
-        if(isRestart.get()){
+        if(isRunning.get() || isStopped || refSocketConfig.get() == null) return;
+        if(!isRestart.compareAndSet(false, true)){
             logger.debug("start reconnect is start...");
             return;
         }
+        backoff.begin();
         //创建重连子线程
         final Thread tReconnect = new Thread(new Runnable() {
             @Override
             public void run() {
+                boolean exhausted = false;
                 try {
-                    if(isRestart.get()) return;
-                    isRestart.set(true);
-                    //
-                    SocketConfig config;
                     //检查是否符合重启条件
-                    while (!isRunning.get() && (config = refSocketConfig.get()) != null
-                            && reconnectTotal.get() < config.getTimes() + 1) {
+                    while (!isRunning.get() && !isStopped && refSocketConfig.get() != null) {
+                        final long delay = backoff.next(reconnectFloorMillis);
+                        if(delay < 0){//本轮重连预算耗尽
+                            logger.warn("reconnect budget exhausted=>" + backoff.metrics());
+                            exhausted = true;
+                            break;
+                        }
+                        //线程等待(网络变化时提前结束)
+                        logger.info("start reconnect wait[" + delay + " ms]...");
+                        awaitReconnect(delay);
+                        if(isRunning.get() || isStopped) break;
                         try {
-                            logger.info("start reconnect[" + reconnectTotal.get() + "]...");
+                            backoff.attempted();
                             //重启socket连接
                             startSocket();
-                            logger.info("start reconnect successful!");
+                            awaitConnect();
                         } catch (Exception ex) {
                             logger.warn("reconnect restart fail:" + ex.getMessage(), ex);
-                        } finally {
-                            reconnectTotal.incrementAndGet();
-                            //线程等待
-                            final int interval = config.getReconnect() * 1000;
-                            if (interval > 0) {
-                                Thread.sleep(interval);
-                            }
                         }
                     }
+                } catch (InterruptedException e) {
+                    logger.warn("start reconnect interrupted!");
                 } catch (Exception e) {
                     logger.error("start reconnect exception:" + e.getMessage(), e);
                 }finally {
                     isRestart.set(false);
                     if(isRunning.get()) {//关闭重连定时器
-                        PollingUtils.stopPollingService(context, PushClientService.class, ACTION_RECONNECT);
+                        stopPolling(ACTION_RECONNECT);
+                        logger.info("start reconnect successful=>" + backoff.metrics());
+                    }else if(exhausted && !isStopped){//由重连定时器再次唤醒
+                        startPolling(backoff.getCapMillis() / 1000, ACTION_RECONNECT);
                     }
                 }
             }
@@ -595,6 +1435,43 @@ public final class PushSocket implements CodecEncoder.CodecEncoderListener, Code
         tReconnect.start();
     }
 
+    //重连等待(网络变化时提前返回)
+    private void awaitReconnect(final long delay) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + delay;
+        synchronized (connectLock){
+            final int seq = networkChanges;
+            long remain;
+            while (seq == networkChanges && !isRunning.get() && !isStopped && (remain = deadline - System.currentTimeMillis()) > 0){
+                connectLock.wait(remain);
+            }
+        }
+    }
+
+    //等待连接尝试结束
+    private void awaitConnect() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + connectTimeoutMillis + readTimeoutMillis;
+        synchronized (connectLock){
+            long remain;
+            while (isConnecting.get() && !isRunning.get() && !isStopped && (remain = deadline - System.currentTimeMillis()) > 0){
+                connectLock.wait(remain);
+            }
+        }
+    }
+
+    /**
+     * 网络状态变化(重置重连退避并立即重连)。
+     */
+    public void networkChanged(){
+        logger.info("network changed...");
+        if(isStopped) return;
+        backoff.reset();
+        synchronized (connectLock){
+            networkChanges++;
+            connectLock.notifyAll();
+        }
+        startReconnect();
+    }
+
     /**
      * socket 事件监听器。
      */
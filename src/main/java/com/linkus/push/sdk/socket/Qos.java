@@ -18,7 +18,7 @@ enum Qos {
      */
     Ack(2);
 
-    private int val;
+    private final int val;
     /**
      * 构造函数。
      * @param val
@@ -44,9 +44,15 @@ enum Qos {
      * 消息Qos枚举对象。
      */
     public static Qos parse(final int val){
+        return (val >= 0 && val < LOOKUP.length) ? LOOKUP[val] : null;
+    }
+
+    //枚举值下标查找表(Qos占2位)
+    private static final Qos[] LOOKUP = new Qos[4];
+
+    static {
         for(Qos qos : values()){
-            if(qos.val == val) return qos;
+            LOOKUP[qos.val] = qos;
         }
-        return null;
     }
 }
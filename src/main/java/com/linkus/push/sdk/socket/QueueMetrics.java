@@ -0,0 +1,112 @@
+package com.linkus.push.sdk.socket;
+
+/**
+ * 队列指标快照。
+ */
+public final class QueueMetrics {
+    private final int capacity, depth, maxDepth;
+    private final long enqueued, dropped, blockedMillis;
+    private final long avgLatencyMicros, maxLatencyMicros;
+
+    /**
+     * 构造函数。
+     * @param capacity
+     * 队列容量(接收队列为消息数,发送队列为字节数)。
+     * @param depth
+     * 当前队列深度。
+     * @param maxDepth
+     * 队列深度峰值。
+     * @param enqueued
+     * 累计入队数。
+     * @param dropped
+     * 累计丢弃数。
+     * @param blockedMillis
+     * 累计入队阻塞时长(毫秒)。
+     * @param avgLatencyMicros
+     * 平均排队延迟(微秒,接收队列为入队至出队,发送队列为入队至写入socket)。
+     * @param maxLatencyMicros
+     * 最大排队延迟(微秒)。
+     */
+    QueueMetrics(final int capacity, final int depth, final int maxDepth, final long enqueued, final long dropped, final long blockedMillis,
+                 final long avgLatencyMicros, final long maxLatencyMicros){
+        this.capacity = capacity;
+        this.depth = depth;
+        this.maxDepth = maxDepth;
+        this.enqueued = enqueued;
+        this.dropped = dropped;
+        this.blockedMillis = blockedMillis;
+        this.avgLatencyMicros = avgLatencyMicros;
+        this.maxLatencyMicros = maxLatencyMicros;
+    }
+
+    /**
+     * 获取队列容量(接收队列为消息数,发送队列为字节数)。
+     * @return 队列容量。
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 获取当前队列深度。
+     * @return 当前队列深度。
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * 获取队列深度峰值。
+     * @return 队列深度峰值。
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * 获取累计入队数。
+     * @return 累计入队数。
+     */
+    public long getEnqueued() {
+        return enqueued;
+    }
+
+    /**
+     * 获取累计丢弃数。
+     * @return 累计丢弃数。
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * 获取累计入队阻塞时长(毫秒)。
+     * @return 累计入队阻塞时长。
+     */
+    public long getBlockedMillis() {
+        return blockedMillis;
+    }
+
+    /**
+     * 获取平均排队延迟(微秒)。
+     * @return 平均排队延迟。
+     */
+    public long getAvgLatencyMicros() {
+        return avgLatencyMicros;
+    }
+
+    /**
+     * 获取最大排队延迟(微秒)。
+     * @return 最大排队延迟。
+     */
+    public long getMaxLatencyMicros() {
+        return maxLatencyMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueMetrics[capacity=" + capacity + ",depth=" + depth + ",maxDepth=" + maxDepth
+                + ",enqueued=" + enqueued + ",dropped=" + dropped + ",blockedMillis=" + blockedMillis
+                + ",avgLatencyMicros=" + avgLatencyMicros + ",maxLatencyMicros=" + maxLatencyMicros + "]";
+    }
+}
@@ -0,0 +1,130 @@
+package com.linkus.push.sdk.socket;
+
+import java.util.Random;
+
+/**
+ * 重连退避策略(去相关指数退避)及重连指标。
+ * <p>
+ * 连接断开后的首次重连在[0,基础间隔]内随机等待(网络变化后快速恢复);
+ * 其后每次等待在[基础间隔,上次等待×3]内随机选取且不超过上限,避免大量设备在服务器重启后同步重连;
+ * 服务器下发的重连间隔作为等待下限。一轮重连累计时长超过预算后放弃,等待下次重连定时器。
+ * </p>
+ */
+final class ReconnectBackoff {
+    /**
+     * 默认基础间隔(毫秒)。
+     */
+    static final int DEF_BASE_MILLIS = 1000;
+    /**
+     * 默认等待上限(毫秒)。
+     */
+    static final int DEF_CAP_MILLIS = 5 * 60 * 1000;
+    /**
+     * 默认单轮重连预算(毫秒)。
+     */
+    static final int DEF_BUDGET_MILLIS = 15 * 60 * 1000;
+
+    private final Random random = new Random();
+    private final int baseMillis, capMillis, budgetMillis;
+
+    //以下由对象锁保护
+    private long prevMillis = 0, lostTime = 0, cycleStart = 0;
+    private long attempts = 0, recovered = 0, exhausted = 0;
+    private long lastRecoverMillis = 0, totalRecoverMillis = 0, maxRecoverMillis = 0;
+
+    /**
+     * 构造函数。
+     * @param baseMillis
+     * 基础间隔(毫秒)。
+     * @param capMillis
+     * 等待上限(毫秒)。
+     * @param budgetMillis
+     * 单轮重连预算(毫秒)。
+     */
+    ReconnectBackoff(final int baseMillis, final int capMillis, final int budgetMillis){
+        if(baseMillis <= 0) throw new IllegalArgumentException("baseMillis");
+        if(capMillis < baseMillis) throw new IllegalArgumentException("capMillis");
+        if(budgetMillis <= 0) throw new IllegalArgumentException("budgetMillis");
+        this.baseMillis = baseMillis;
+        this.capMillis = capMillis;
+        this.budgetMillis = budgetMillis;
+    }
+
+    /**
+     * 开始一轮重连(记录连接断开时间)。
+     */
+    synchronized void begin(){
+        final long now = System.currentTimeMillis();
+        if(lostTime == 0) lostTime = now;
+        cycleStart = now;
+    }
+
+    /**
+     * 网络变化,下次重连按首次重连快速进行。
+     */
+    synchronized void reset(){
+        prevMillis = 0;
+        cycleStart = System.currentTimeMillis();
+    }
+
+    /**
+     * 计算下次重连等待时长。
+     * @param floorMillis
+     * 等待下限(毫秒,服务器下发的重连间隔)。
+     * @return 等待时长(毫秒),本轮重连预算已耗尽返回-1。
+     */
+    synchronized long next(final long floorMillis){
+        if(cycleStart > 0 && System.currentTimeMillis() - cycleStart > budgetMillis){
+            exhausted++;
+            prevMillis = 0;
+            return -1;
+        }
+        if(prevMillis == 0){//首次重连
+            prevMillis = baseMillis;
+            return Math.max(floorMillis, (long)(random.nextDouble() * baseMillis));
+        }
+        final long upper = Math.min((long)capMillis, prevMillis * 3);
+        prevMillis = Math.min(capMillis, baseMillis + (long)(random.nextDouble() * (upper - baseMillis)));
+        return Math.max(floorMillis, prevMillis);
+    }
+
+    /**
+     * 记录重连尝试。
+     */
+    synchronized void attempted(){
+        attempts++;
+    }
+
+    /**
+     * 连接成功(记录恢复耗时并重置退避)。
+     */
+    synchronized void connected(){
+        prevMillis = 0;
+        cycleStart = 0;
+        if(lostTime > 0){
+            final long elapsed = System.currentTimeMillis() - lostTime;
+            lostTime = 0;
+            recovered++;
+            lastRecoverMillis = elapsed;
+            totalRecoverMillis += elapsed;
+            if(elapsed > maxRecoverMillis) maxRecoverMillis = elapsed;
+        }
+    }
+
+    /**
+     * 获取等待上限(毫秒)。
+     * @return 等待上限。
+     */
+    int getCapMillis(){
+        return capMillis;
+    }
+
+    /**
+     * 获取指标快照。
+     * @return 重连指标。
+     */
+    synchronized ReconnectMetrics metrics(){
+        return new ReconnectMetrics(attempts, recovered, exhausted, lastRecoverMillis,
+                recovered == 0 ? 0 : totalRecoverMillis / recovered, maxRecoverMillis);
+    }
+}
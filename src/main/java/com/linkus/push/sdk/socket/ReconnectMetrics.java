@@ -0,0 +1,89 @@
+package com.linkus.push.sdk.socket;
+
+/**
+ * 重连指标快照。
+ */
+public final class ReconnectMetrics {
+    private final long attempts, recovered, exhausted;
+    private final long lastRecoverMillis, avgRecoverMillis, maxRecoverMillis;
+
+    /**
+     * 构造函数。
+     * @param attempts
+     * 累计重连尝试数。
+     * @param recovered
+     * 累计恢复连接次数。
+     * @param exhausted
+     * 累计重连预算耗尽次数。
+     * @param lastRecoverMillis
+     * 最近一次恢复耗时(毫秒,连接断开至重新连接成功)。
+     * @param avgRecoverMillis
+     * 平均恢复耗时(毫秒)。
+     * @param maxRecoverMillis
+     * 最大恢复耗时(毫秒)。
+     */
+    ReconnectMetrics(final long attempts, final long recovered, final long exhausted,
+                     final long lastRecoverMillis, final long avgRecoverMillis, final long maxRecoverMillis){
+        this.attempts = attempts;
+        this.recovered = recovered;
+        this.exhausted = exhausted;
+        this.lastRecoverMillis = lastRecoverMillis;
+        this.avgRecoverMillis = avgRecoverMillis;
+        this.maxRecoverMillis = maxRecoverMillis;
+    }
+
+    /**
+     * 获取累计重连尝试数。
+     * @return 累计重连尝试数。
+     */
+    public long getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * 获取累计恢复连接次数。
+     * @return 累计恢复连接次数。
+     */
+    public long getRecovered() {
+        return recovered;
+    }
+
+    /**
+     * 获取累计重连预算耗尽次数。
+     * @return 累计重连预算耗尽次数。
+     */
+    public long getExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * 获取最近一次恢复耗时(毫秒)。
+     * @return 最近一次恢复耗时。
+     */
+    public long getLastRecoverMillis() {
+        return lastRecoverMillis;
+    }
+
+    /**
+     * 获取平均恢复耗时(毫秒)。
+     * @return 平均恢复耗时。
+     */
+    public long getAvgRecoverMillis() {
+        return avgRecoverMillis;
+    }
+
+    /**
+     * 获取最大恢复耗时(毫秒)。
+     * @return 最大恢复耗时。
+     */
+    public long getMaxRecoverMillis() {
+        return maxRecoverMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ReconnectMetrics[attempts=" + attempts + ",recovered=" + recovered + ",exhausted=" + exhausted
+                + ",lastRecoverMillis=" + lastRecoverMillis + ",avgRecoverMillis=" + avgRecoverMillis
+                + ",maxRecoverMillis=" + maxRecoverMillis + "]";
+    }
+}
@@ -0,0 +1,247 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.utils.LogWrapper;
+
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * socket连接器(Happy Eyeballs,RFC 8305)。
+ * <p>
+ * 解析服务器全部A/AAAA记录,按地址族交替排序(上次连接成功的地址及其地址族优先),
+ * 依次错开启动连接尝试:每个尝试有独立的连接超时,前一尝试失败或错开间隔到期即启动下一个,
+ * 最先连接成功者胜出,其余尝试关闭;胜出的地址记录下来供下次连接优先使用。
+ * </p>
+ */
+final class SocketConnector {
+    private static final LogWrapper logger = LogWrapper.getLog(SocketConnector.class);
+
+    /**
+     * 默认连接尝试错开间隔(毫秒)。
+     */
+    static final int DEF_ATTEMPT_DELAY_MILLIS = 250;
+    /**
+     * 默认单次连接尝试超时(毫秒)。
+     */
+    static final int DEF_ATTEMPT_TIMEOUT_MILLIS = 10000;
+    /**
+     * 默认连接总超时(毫秒)。
+     */
+    static final int DEF_CONNECT_TIMEOUT_MILLIS = 15000;
+
+    //上次连接成功的地址(服务器=>地址)
+    private static final Map<String, InetAddress> winners = new ConcurrentHashMap<>();
+
+    private final int attemptDelayMillis, attemptTimeoutMillis, connectTimeoutMillis;
+
+    private final Object lock = new Object();
+    private final List<Socket> attempts = new ArrayList<>();
+    private Socket winner;
+    private InetAddress winnerAddress;
+    private IOException lastError;
+    private int failed = 0;
+    private boolean done = false;
+
+    /**
+     * 构造函数。
+     * @param attemptDelayMillis
+     * 连接尝试错开间隔(毫秒)。
+     * @param attemptTimeoutMillis
+     * 单次连接尝试超时(毫秒)。
+     * @param connectTimeoutMillis
+     * 连接总超时(毫秒)。
+     */
+    SocketConnector(final int attemptDelayMillis, final int attemptTimeoutMillis, final int connectTimeoutMillis){
+        if(attemptDelayMillis < 0) throw new IllegalArgumentException("attemptDelayMillis");
+        if(attemptTimeoutMillis <= 0) throw new IllegalArgumentException("attemptTimeoutMillis");
+        if(connectTimeoutMillis <= 0) throw new IllegalArgumentException("connectTimeoutMillis");
+        this.attemptDelayMillis = attemptDelayMillis;
+        this.attemptTimeoutMillis = attemptTimeoutMillis;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    /**
+     * 解析服务器全部地址并排序(上次胜出的地址优先,其后按地址族交替)。
+     * @param host
+     * 服务器地址。
+     * @return 排序后的地址。
+     * @throws IOException
+     * 解析失败。
+     */
+    static List<InetAddress> resolve(final String host) throws IOException {
+        final InetAddress[] all = InetAddress.getAllByName(host);
+        if(all == null || all.length == 0) throw new IOException("server host to ip fail(" + host + ")!");
+        final InetAddress preferred = winners.get(host);
+        //按地址族分组(保持系统解析顺序)
+        final List<InetAddress> v4 = new ArrayList<>(), v6 = new ArrayList<>();
+        for(InetAddress addr : all){
+            if(addr.equals(preferred)) continue;
+            (addr instanceof Inet6Address ? v6 : v4).add(addr);
+        }
+        final List<InetAddress> result = new ArrayList<>(all.length);
+        final boolean v6First;
+        if(preferred != null && contains(all, preferred)){
+            result.add(preferred);
+            v6First = !(preferred instanceof Inet6Address);//下一个地址换用另一地址族
+        }else {
+            v6First = all[0] instanceof Inet6Address;
+        }
+        final List<InetAddress> first = v6First ? v6 : v4, second = v6First ? v4 : v6;
+        for(int i = 0; i < Math.max(first.size(), second.size()); i++){
+            if(i < first.size()) result.add(first.get(i));
+            if(i < second.size()) result.add(second.get(i));
+        }
+        return result;
+    }
+
+    private static boolean contains(final InetAddress[] all, final InetAddress addr){
+        for(InetAddress a : all){
+            if(a.equals(addr)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 记录连接成功的地址。
+     * @param host
+     * 服务器地址。
+     * @param address
+     * 胜出的地址。
+     */
+    static void succeeded(final String host, final InetAddress address){
+        winners.put(host, address);
+        logger.info("socket connect winner(" + host + "=>" + address.getHostAddress()
+                + (address instanceof Inet6Address ? ",IPv6" : ",IPv4") + ")");
+    }
+
+    /**
+     * 清除记录的地址(全部地址连接失败时)。
+     * @param host
+     * 服务器地址。
+     */
+    static void failed(final String host){
+        winners.remove(host);
+    }
+
+    /**
+     * 连接服务器(每个实例仅可调用一次)。
+     * @param host
+     * 服务器地址。
+     * @param port
+     * 服务器端口。
+     * @return 已连接的socket。
+     * @throws IOException
+     * 全部地址连接失败或超时。
+     */
+    Socket connect(final String host, final int port) throws IOException {
+        final long deadline = System.currentTimeMillis() + connectTimeoutMillis;
+        final List<InetAddress> addresses;
+        try {
+            addresses = resolve(host);
+        }catch (IOException e){
+            failed(host);
+            throw e;
+        }
+        logger.debug("socket server(" + host + "=>" + addresses + ")...");
+        try {
+            synchronized (lock) {
+                for (int i = 0; i < addresses.size(); i++) {
+                    startAttempt(i, addresses.get(i), port);
+                    //等待本次尝试结果,失败或错开间隔到期后启动下一个
+                    final long next = System.currentTimeMillis() + attemptDelayMillis;
+                    final int failedBefore = failed;
+                    long remain;
+                    while (winner == null && failed == failedBefore
+                            && (remain = Math.min(next, deadline) - System.currentTimeMillis()) > 0) {
+                        lock.wait(remain);
+                    }
+                    if (winner != null || System.currentTimeMillis() >= deadline) break;
+                }
+                //等待已启动的尝试
+                long remain;
+                while (winner == null && failed < attempts.size()
+                        && (remain = deadline - System.currentTimeMillis()) > 0) {
+                    lock.wait(remain);
+                }
+                done = true;
+                //关闭其余尝试
+                for (Socket s : attempts) {
+                    if (s != winner) closeQuietly(s);
+                }
+                if (winner != null) {
+                    succeeded(host, winnerAddress);
+                    return winner;
+                }
+                failed(host);
+                if (failed < attempts.size()) {
+                    throw new SocketTimeoutException("connect timeout[" + connectTimeoutMillis + " ms]");
+                }
+                throw lastError != null ? lastError : new IOException("socket connect fail(" + host + ")!");
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            abort();
+            throw new IOException("socket connect interrupted!");
+        }
+    }
+
+    //中止全部尝试
+    private void abort(){
+        synchronized (lock){
+            done = true;
+            for(Socket s : attempts){
+                closeQuietly(s);
+            }
+        }
+    }
+
+    //启动连接尝试
+    private void startAttempt(final int index, final InetAddress address, final int port){
+        final Socket socket = new Socket();
+        attempts.add(socket);
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    socket.setTcpNoDelay(true);
+                    socket.connect(new InetSocketAddress(address, port), attemptTimeoutMillis);
+                    synchronized (lock){
+                        if(!done && winner == null){
+                            winner = socket;
+                            winnerAddress = address;
+                            lock.notifyAll();
+                            return;
+                        }
+                    }
+                    closeQuietly(socket);
+                }catch (IOException e){
+                    logger.debug("socket connect[" + address.getHostAddress() + "] fail:" + e.getMessage());
+                    closeQuietly(socket);
+                    synchronized (lock){
+                        failed++;
+                        lastError = e;
+                        lock.notifyAll();
+                    }
+                }
+            }
+        }, "push-socket-connect-" + index);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void closeQuietly(final Socket socket){
+        try {
+            socket.close();
+        }catch (IOException e){
+            logger.warn("close socket exception:" + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.utils.LogWrapper;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 超大消息体临时文件落盘(分块写入临时文件,接收完整后交由监听器处理,文件由监听器负责删除)。
+ */
+public final class TempFileBodySpiller implements LargeBodyListener {
+    private static final LogWrapper logger = LogWrapper.getLog(TempFileBodySpiller.class);
+
+    private static final String FILE_PREFIX = "push-body", FILE_SUFFIX = ".tmp";
+    //遗留临时文件保留时长(毫秒)
+    private static final long STALE_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private final File dir;
+    private final SpilledBodyListener listener;
+
+    private File file;
+    private OutputStream out;
+    private BodyFormat format;
+
+    /**
+     * 构造函数(清理目录中遗留的过期临时文件)。
+     * @param dir
+     * 临时文件目录(null表示系统临时目录)。
+     * @param listener
+     * 落盘完成监听器。
+     */
+    public TempFileBodySpiller(final File dir, final SpilledBodyListener listener){
+        if(listener == null) throw new IllegalArgumentException("listener");
+        this.dir = dir;
+        this.listener = listener;
+        cleanup();
+    }
+
+    //清理遗留的过期临时文件
+    private void cleanup(){
+        final File root = dir != null ? dir : new File(System.getProperty("java.io.tmpdir"));
+        final File[] files = root.listFiles();
+        if(files == null) return;
+        final long expired = System.currentTimeMillis() - STALE_MILLIS;
+        for(File f : files){
+            if(f.getName().startsWith(FILE_PREFIX) && f.getName().endsWith(FILE_SUFFIX) && f.lastModified() < expired){
+                if(!f.delete()) logger.warn("删除过期临时文件失败=>" + f);
+            }
+        }
+    }
+
+    @Override
+    public void begin(final MessageType type, final BodyFormat format, final int length) {
+        discard();
+        try {
+            this.file = File.createTempFile(FILE_PREFIX, FILE_SUFFIX, dir);
+            this.out = new BufferedOutputStream(new FileOutputStream(file));
+            this.format = format;
+            logger.info("消息[" + type + "]消息体[" + length + " bytes]超过内存上限,写入临时文件=>" + file);
+        }catch (IOException e){
+            logger.error("创建临时文件失败:" + e.getMessage(), e);
+            discard();
+        }
+    }
+
+    @Override
+    public void chunk(final MessageType type, final byte[] data, final int offset, final int length) {
+        if(out == null) return;
+        try {
+            out.write(data, offset, length);
+        }catch (IOException e){
+            logger.error("写入临时文件失败:" + e.getMessage(), e);
+            discard();
+        }
+    }
+
+    @Override
+    public void end(final MessageType type) {
+        if(out == null) return;
+        final File spilled = file;
+        try {
+            out.close();
+        }catch (IOException e){
+            logger.error("关闭临时文件失败:" + e.getMessage(), e);
+            discard();
+            return;
+        }
+        out = null;
+        file = null;
+        try {
+            listener.spilled(type, format, spilled);
+        }catch (Exception e){
+            logger.error("处理临时文件[" + type + "]异常:" + e.getMessage(), e);
+            if(spilled.exists() && !spilled.delete()) logger.warn("删除临时文件失败=>" + spilled);
+        }
+    }
+
+    @Override
+    public void abort(final MessageType type) {
+        logger.warn("消息[" + type + "]消息体接收中断!");
+        discard();
+    }
+
+    //丢弃当前临时文件
+    private void discard(){
+        if(out != null){
+            try {
+                out.close();
+            }catch (IOException e){
+                logger.warn("关闭临时文件失败:" + e.getMessage());
+            }
+            out = null;
+        }
+        if(file != null){
+            if(!file.delete()) logger.warn("删除临时文件失败=>" + file);
+            file = null;
+        }
+    }
+
+    /**
+     * 落盘完成监听器。
+     */
+    public interface SpilledBodyListener {
+        /**
+         * 消息体已完整写入临时文件(文件由监听器负责删除)。
+         * @param type
+         * 消息类型。
+         * @param format
+         * 消息体格式。
+         * @param file
+         * 临时文件。
+         */
+        void spilled(final MessageType type, final BodyFormat format, final File file);
+    }
+}
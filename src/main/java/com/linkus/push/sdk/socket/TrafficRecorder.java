@@ -0,0 +1,124 @@
+package com.linkus.push.sdk.socket;
+
+import com.linkus.push.sdk.utils.LogWrapper;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * 接收数据录制器(按socket读取边界记录原始字节及时间间隔,供 TrafficReplayer 回放)。
+ * <p>
+ * 文件格式:文件头为魔数"PSCP"、1字节版本号、8字节录制开始时间(毫秒);
+ * 其后为记录序列,每条记录为1字节记录类型、varint距上一条记录的间隔(微秒),
+ * 数据记录再跟varint数据长度及原始字节。
+ * </p>
+ */
+public final class TrafficRecorder {
+    private static final LogWrapper logger = LogWrapper.getLog(TrafficRecorder.class);
+
+    /**
+     * 文件魔数。
+     */
+    static final byte[] MAGIC = {'P', 'S', 'C', 'P'};
+    /**
+     * 文件版本。
+     */
+    static final int VERSION = 1;
+    /**
+     * 记录类型-建立连接。
+     */
+    static final int RECORD_CONNECT = 1;
+    /**
+     * 记录类型-接收数据。
+     */
+    static final int RECORD_DATA = 2;
+
+    private final DataOutputStream out;
+    private long lastNanos;
+    private boolean closed = false;
+
+    /**
+     * 构造函数(覆盖已存在的文件)。
+     * @param file
+     * 录制文件。
+     * @throws IOException
+     * 创建文件失败。
+     */
+    public TrafficRecorder(final File file) throws IOException {
+        if(file == null) throw new IllegalArgumentException("file");
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        this.out.write(MAGIC);
+        this.out.writeByte(VERSION);
+        this.out.writeLong(System.currentTimeMillis());
+        this.out.flush();
+        this.lastNanos = System.nanoTime();
+    }
+
+    /**
+     * 记录建立连接(回放时重置解码状态)。
+     */
+    public synchronized void markConnect(){
+        if(closed) return;
+        try {
+            writeRecordHeader(RECORD_CONNECT);
+            out.flush();
+        }catch (IOException e){
+            logger.warn("record connect exception:" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 记录一次socket读取的数据。
+     * @param data
+     * 数据。
+     * @param offset
+     * 起始位置。
+     * @param length
+     * 数据长度。
+     */
+    public synchronized void record(final byte[] data, final int offset, final int length){
+        if(closed || length <= 0) return;
+        try {
+            writeRecordHeader(RECORD_DATA);
+            writeVarint(length);
+            out.write(data, offset, length);
+            out.flush();
+        }catch (IOException e){
+            logger.warn("record data exception:" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 关闭录制文件。
+     */
+    public synchronized void close(){
+        if(closed) return;
+        closed = true;
+        try {
+            out.close();
+        }catch (IOException e){
+            logger.warn("close recorder exception:" + e.getMessage(), e);
+        }
+    }
+
+    //写入记录类型及时间间隔
+    private void writeRecordHeader(final int type) throws IOException {
+        final long now = System.nanoTime();
+        final long delta = Math.max(0L, (now - lastNanos) / 1000L);
+        lastNanos = now;
+        out.writeByte(type);
+        writeVarint(delta);
+    }
+
+    //写入varint
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0){
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,161 @@
+package com.linkus.push.sdk.socket;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 接收数据回放器(加载 TrafficRecorder 录制的文件,按原读取边界写入解码器)。
+ * <p>
+ * 可全速回放(用于基准测试),也可按录制时的时间间隔回放(还原重连后的消息突发等流量形态)。
+ * </p>
+ */
+public final class TrafficReplayer {
+    private final long startTime;
+    private final byte[] data;
+    private final int count;
+    private final int[] types, offsets, lengths;
+    private final long[] delays;
+    private final long totalBytes;
+
+    /**
+     * 构造函数(加载录制文件)。
+     * @param file
+     * 录制文件。
+     * @throws IOException
+     * 读取失败或文件格式不符。
+     */
+    public TrafficReplayer(final File file) throws IOException {
+        if(file == null) throw new IllegalArgumentException("file");
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            final byte[] magic = new byte[TrafficRecorder.MAGIC.length];
+            in.readFully(magic);
+            if(!Arrays.equals(magic, TrafficRecorder.MAGIC)) throw new IOException("录制文件格式不符!");
+            final int version = in.readUnsignedByte();
+            if(version != TrafficRecorder.VERSION) throw new IOException("录制文件版本[" + version + "]不支持!");
+            this.startTime = in.readLong();
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int[] t = new int[64], o = new int[64], l = new int[64];
+            long[] d = new long[64];
+            int n = 0;
+            long total = 0;
+            while (true){
+                final int type = in.read();
+                if(type < 0) break;
+                if(n == t.length){
+                    t = Arrays.copyOf(t, n << 1);
+                    o = Arrays.copyOf(o, n << 1);
+                    l = Arrays.copyOf(l, n << 1);
+                    d = Arrays.copyOf(d, n << 1);
+                }
+                if(type != TrafficRecorder.RECORD_DATA && type != TrafficRecorder.RECORD_CONNECT){
+                    throw new IOException("录制记录类型[" + type + "]不支持!");
+                }
+                try {
+                    t[n] = type;
+                    d[n] = readVarint(in);
+                    if (type == TrafficRecorder.RECORD_DATA) {
+                        final int len = (int) readVarint(in);
+                        final byte[] buf = new byte[len];
+                        in.readFully(buf);
+                        o[n] = bytes.size();
+                        l[n] = len;
+                        bytes.write(buf, 0, len);
+                        total += len;
+                    }
+                }catch (EOFException e){//录制中断导致的末尾不完整记录,忽略
+                    break;
+                }
+                n++;
+            }
+            this.data = bytes.toByteArray();
+            this.count = n;
+            this.types = t;
+            this.offsets = o;
+            this.lengths = l;
+            this.delays = d;
+            this.totalBytes = total;
+        }finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 获取录制开始时间(毫秒)。
+     * @return 录制开始时间。
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * 获取记录数(含连接记录)。
+     * @return 记录数。
+     */
+    public int getRecordCount() {
+        return count;
+    }
+
+    /**
+     * 获取录制的数据总字节数。
+     * @return 数据总字节数。
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 回放至解码器。
+     * @param decoder
+     * 解码器。
+     * @param paced
+     * 是否按录制时的时间间隔回放(否则全速回放)。
+     * @throws InterruptedException
+     * 按间隔等待时被中断。
+     */
+    public void replay(final CodecDecoder decoder, final boolean paced) throws InterruptedException {
+        if(decoder == null) throw new IllegalArgumentException("decoder");
+        for(int i = 0; i < count; i++){
+            if(paced && delays[i] > 0){
+                Thread.sleep(delays[i] / 1000L, (int) (delays[i] % 1000L) * 1000);
+            }
+            if(types[i] == TrafficRecorder.RECORD_CONNECT){
+                decoder.reset();
+            }else{
+                decoder.addDecode(data, offsets[i], lengths[i]);
+            }
+        }
+    }
+
+    /**
+     * 回放至推送socket(经消息处理器注册表回调 PushSocketListener)。
+     * @param socket
+     * 推送socket。
+     * @param paced
+     * 是否按录制时的时间间隔回放。
+     * @throws InterruptedException
+     * 按间隔等待时被中断。
+     */
+    public void replay(final PushSocket socket, final boolean paced) throws InterruptedException {
+        if(socket == null) throw new IllegalArgumentException("socket");
+        replay(socket.getDecoder(), paced);
+    }
+
+    //读取varint
+    private static long readVarint(final DataInputStream in) throws IOException {
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7){
+            final int b = in.read();
+            if(b < 0) throw new EOFException("录制文件varint不完整!");
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0) return value;
+        }
+        throw new IOException("录制文件varint超长!");
+    }
+}
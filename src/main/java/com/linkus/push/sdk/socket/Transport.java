@@ -0,0 +1,123 @@
+package com.linkus.push.sdk.socket;
+
+import java.io.IOException;
+
+/**
+ * 消息帧传输接口(由 PushSocket 驱动)。
+ * <p>
+ * 负责连接服务器、发送编码后的消息帧并将接收到的数据交由监听器解码;
+ * 监听器回调及定时任务均在传输自身的线程中依次执行。
+ * 内置实现:非阻塞TCP传输(PushSocket.setNioTransportEnabled)及进程内回环传输(LoopbackServer)。
+ * </p>
+ */
+public interface Transport {
+
+    /**
+     * 启动传输(首次连接前由 PushSocket 调用一次)。
+     * @throws IOException
+     * 启动失败。
+     */
+    void start() throws IOException;
+
+    /**
+     * 连接服务器(关闭已有连接),结果通过监听器 connected/closed 回调。
+     * @param host
+     * 服务器地址。
+     * @param port
+     * 服务器端口。
+     * @param timeoutMillis
+     * 连接总超时(毫秒)。
+     */
+    void connect(final String host, final int port, final int timeoutMillis);
+
+    /**
+     * 断开连接(未发送的消息帧将被丢弃,不回调 closed)。
+     */
+    void disconnect();
+
+    /**
+     * 消息帧入队发送(排队字节数超过上限时阻塞,传输线程自身入队时不阻塞)。
+     * @param type
+     * 消息类型。
+     * @param frame
+     * 消息帧(入队后由传输负责release)。
+     * @return 是否入队成功(未连接或背压等待超时时释放消息帧并返回false)。
+     */
+    boolean offer(final MessageType type, final PooledBuffer frame);
+
+    /**
+     * 添加定时任务(在传输线程中执行)。
+     * @param task
+     * 任务。
+     * @param delayMillis
+     * 延迟(毫秒)。
+     */
+    void schedule(final Runnable task, final long delayMillis);
+
+    /**
+     * 是否已连接。
+     * @return 是否已连接。
+     */
+    boolean isConnected();
+
+    /**
+     * 设置发送队列排队字节上限(下次连接时生效)。
+     * @param maxQueueBytes
+     * 排队字节上限。
+     */
+    void setMaxQueueBytes(final int maxQueueBytes);
+
+    /**
+     * 获取当前连接的发送队列指标。
+     * @return 队列指标,未连接过时返回null。
+     */
+    QueueMetrics metrics();
+
+    /**
+     * 传输监听器(回调均在传输线程中执行)。
+     */
+    interface TransportListener {
+        /**
+         * 连接建立完成。
+         */
+        void connected();
+
+        /**
+         * 接收到数据(数据仅在调用期间有效)。
+         * @param data
+         * 数据。
+         * @param offset
+         * 起始位置。
+         * @param length
+         * 数据长度。
+         */
+        void received(final byte[] data, final int offset, final int length);
+
+        /**
+         * 消息帧已发送。
+         * @param type
+         * 消息类型。
+         */
+        void written(final MessageType type);
+
+        /**
+         * 连接关闭(连接失败、读写异常或服务器关闭连接)。
+         * @param cause
+         * 关闭原因。
+         */
+        void closed(final Exception cause);
+    }
+
+    /**
+     * 传输工厂。
+     */
+    interface TransportFactory {
+        /**
+         * 创建传输。
+         * @param listener
+         * 传输监听器。
+         * @return 传输(尚未启动)。
+         */
+        Transport create(final TransportListener listener);
+    }
+}
@@ -5,14 +5,16 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.linkus.push.sdk.data.SocketConfig;
 import com.linkus.push.sdk.models.AckResult;
+import com.linkus.push.sdk.socket.BufferPool;
 import com.linkus.push.sdk.socket.Codec;
+import com.linkus.push.sdk.socket.PooledBuffer;
 
-import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.ByteBuffer;
 
 /**
  * Http工具类。
@@ -111,10 +113,9 @@ public final class HttpUtils {
                 throw new Exception("网络异常:" + code);
             }
             //读取响应流
-            final byte data[] = toByteArray(connection.getInputStream());
+            result = toUtf8String(connection.getInputStream());
             connection.disconnect();//关闭连接
-            if(data != null && data.length > 0){
-                result = new String(data, Codec.UTF8);
+            if(result != null && result.length() > 0){
                 logger.info("post-response:\n" + result);
             }
         }catch (Exception e){
@@ -124,16 +125,30 @@ public final class HttpUtils {
         return result;
     }
 
-    //流转换为数组
-    private static byte[] toByteArray(final InputStream input) throws Exception{
+    //流转换为UTF-8字符串(读取到池化缓冲区,不足时换用更大的缓冲区)
+    private static String toUtf8String(final InputStream input) throws Exception{
         if(input == null) return null;
-        byte buf[] = new byte[512];
-        final ByteArrayOutputStream output = new ByteArrayOutputStream(buf.length);
-        int count;
-        while ((count = input.read(buf, 0, buf.length)) != -1){
-            output.write(buf, 0, count);
+        final BufferPool pool = BufferPool.shared();
+        PooledBuffer data = pool.acquire(512);
+        try {
+            int count;
+            ByteBuffer buf = data.buffer();
+            while ((count = input.read(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining())) != -1) {
+                buf.position(buf.position() + count);
+                if (!buf.hasRemaining()) {//扩容
+                    final PooledBuffer bigger = pool.acquire(buf.capacity() << 1);
+                    buf.flip();
+                    bigger.buffer().put(buf);
+                    data.release();
+                    data = bigger;
+                    buf = data.buffer();
+                }
+            }
+            if(buf.position() == 0) return null;
+            return new String(buf.array(), buf.arrayOffset(), buf.position(), Codec.UTF8);
+        }finally {
+            data.release();
         }
-        return output.toByteArray();
     }
 
     //关闭流
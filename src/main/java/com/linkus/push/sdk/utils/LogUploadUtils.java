@@ -5,7 +5,9 @@ import com.alibaba.fastjson.JSONObject;
 import com.linkus.push.sdk.data.IAccessConfig;
 import com.linkus.push.sdk.models.AckResult;
 import com.linkus.push.sdk.models.RequestModel;
+import com.linkus.push.sdk.socket.BufferPool;
 import com.linkus.push.sdk.socket.Codec;
+import com.linkus.push.sdk.socket.PooledBuffer;
 
 import java.io.*;
 import java.net.HttpURLConnection;
@@ -100,15 +102,20 @@ final class LogUploadUtils {
             //写入上传文件信息数据
             out.write(info.getBytes(Codec.UTF8));
             //写入上传文件数据
-            byte[] buf = new byte[1024];
-            //随机文件读取
-            final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
-            randomAccessFile.seek(0);//定位到文件头
-            int count;
-            while ((count = randomAccessFile.read(buf,0, buf.length)) != -1){
-                out.write(buf, 0, count);
+            final PooledBuffer data = BufferPool.shared().acquire(1024);
+            try {
+                final byte[] buf = data.buffer().array();
+                //随机文件读取
+                final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+                randomAccessFile.seek(0);//定位到文件头
+                int count;
+                while ((count = randomAccessFile.read(buf, 0, buf.length)) != -1) {
+                    out.write(buf, 0, count);
+                }
+                randomAccessFile.close();//关闭文件
+            }finally {
+                data.release();
             }
-            randomAccessFile.close();//关闭文件
             //文件上传结尾
             final byte[] endData = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(Codec.UTF8);
             out.write(endData);
@@ -1,5 +1,12 @@
 package com.linkus.push.sdk.utils;
 
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.telephony.TelephonyManager;
+
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.HashMap;
@@ -55,4 +62,35 @@ public final class NetUtils {
             ip_cache.remove(server);
         }
     }
+
+    /**
+     * 获取当前网络标识(WiFi为SSID,移动网络为运营商代码)。
+     * @param context
+     * 上下文(null时返回"default")。
+     * @return 网络标识。
+     */
+    public static String getNetworkKey(final Context context){
+        if(context == null) return "default";
+        try {
+            final ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+            final NetworkInfo info = cm == null ? null : cm.getActiveNetworkInfo();
+            if(info == null) return "none";
+            switch (info.getType()){
+                case ConnectivityManager.TYPE_WIFI:{
+                    final WifiManager wm = (WifiManager) context.getApplicationContext().getSystemService(Context.WIFI_SERVICE);
+                    final WifiInfo wifi = wm == null ? null : wm.getConnectionInfo();
+                    return "wifi:" + (wifi == null ? "" : wifi.getSSID());
+                }
+                case ConnectivityManager.TYPE_MOBILE:{
+                    final TelephonyManager tm = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+                    return "mobile:" + (tm == null ? "" : tm.getNetworkOperator());
+                }
+                default:
+                    return "type:" + info.getType();
+            }
+        }catch (SecurityException e){//缺少网络状态权限
+            logger.warn("getNetworkKey-permission:" + e.getMessage());
+            return "default";
+        }
+    }
 }
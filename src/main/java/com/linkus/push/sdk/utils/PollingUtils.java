@@ -15,7 +15,7 @@ public final class PollingUtils {
     /**
      * 开启轮询服务。
      * @param context
-     * 上下文。
+     * 上下文(null时忽略)。
      * @param seconds
      * 轮询间隔时间(秒)。
      * @param cls
@@ -24,6 +24,7 @@ public final class PollingUtils {
      * action。
      */
     public static void startPollingService(final Context context, final int seconds, final Class<?> cls, final String action){
+        if(context == null) return;//无Android上下文(进程内运行)
         //获取AlarmManager
         final AlarmManager manager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
         //包装要执行Service的Intent
@@ -47,13 +48,14 @@ public final class PollingUtils {
     /**
      * 取消轮询服务。
      * @param context
-     * 上下文。
+     * 上下文(null时忽略)。
      * @param cls
      * 轮询目标服务。
      * @param action
      * action。
      */
     public static void stopPollingService(final Context context, final Class<?> cls, final String action){
+        if(context == null) return;//无Android上下文(进程内运行)
         //获取AlarmManager
         final AlarmManager manager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
         //包装要执行Service的Intent